@@ -0,0 +1,146 @@
+package com.quick.wildjack.wildjack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути движка на позициях из партий с фиксированным seed.
+ * makeMove меряется проигрыванием целой записанной партии (playSeededGame) — отдельный ход нельзя
+ * откатить, а создание партии меряется отдельно (createGame) и вычитается.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameEngineBenchmark {
+
+    private static final int MID_GAME_PLIES = 30;
+
+    @Param({"7", "42", "2024"})
+    long seed;
+
+    private GameService service;
+    private GameService lobbyService;
+    private List<SeededGames.Action> actions;
+    private Game midGame;
+    private String midGamePlayerId;
+    private Random deckRandom;
+
+    // позиции перед ходом, который собирает секвенцию, и перед обычным ходом
+    private BitBoard beforeSequence;
+    private SeededGames.Action sequenceMove;
+    private int sequenceTeam;
+    private BitBoard beforeQuiet;
+    private SeededGames.Action quietMove;
+    private int quietTeam;
+    private BitBoard scratch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(GameService.class)).setLevel(ch.qos.logback.classic.Level.WARN);
+        service = new GameService(null, null, null, null, null, null);
+        // createGame + истечение хода в отдельном сервисе, чтобы не задеть midGame
+        lobbyService = new GameService(null, null, null, null, null, null);
+        deckRandom = new Random(seed);
+
+        actions = SeededGames.record(service, seed, Integer.MAX_VALUE);
+        midGame = SeededGames.replay(service, seed, actions, Math.min(MID_GAME_PLIES, actions.size() - 1));
+        midGamePlayerId = midGame.getPlayers().get(midGame.getCurrentPlayerIndex()).getId();
+
+        Game game = SeededGames.start(service, seed);
+        for (SeededGames.Action action : actions) {
+            if (game.getStatus() != GameStatus.STARTED) {
+                break;
+            }
+            int team = game.getPlayers().get(game.getCurrentPlayerIndex()).getTeam();
+            BitBoard before = game.getBitBoard().copy();
+            int sequences = totalSequences(game);
+            game = SeededGames.apply(service, game, action);
+            if (action.type() != 'M' || action.card().oneEyedJack()) {
+                continue;
+            }
+            if (totalSequences(game) > sequences && beforeSequence == null) {
+                beforeSequence = before;
+                sequenceMove = action;
+                sequenceTeam = team;
+            } else if (beforeQuiet == null && totalSequences(game) == sequences) {
+                beforeQuiet = before;
+                quietMove = action;
+                quietTeam = team;
+            }
+        }
+        if (beforeSequence == null || beforeQuiet == null) {
+            throw new IllegalStateException("Seed " + seed + " has no sequence move, pick another seed");
+        }
+        scratch = beforeQuiet.copy();
+    }
+
+    @Benchmark
+    public Game playSeededGame() {
+        return SeededGames.replay(service, seed, actions, actions.size());
+    }
+
+    @Benchmark
+    public Game createGame() {
+        Game game = lobbyService.createGame(List.of("P0", "P1"));
+        game.setTurnDeadlineEpochMs(0);
+        for (String gameId : lobbyService.pollExpiredGames()) {
+            lobbyService.finishIfExpired(gameId);
+        }
+        return game;
+    }
+
+    @Benchmark
+    public boolean isCurrentPlayerStuck() {
+        return service.isCurrentPlayerStuck(midGame);
+    }
+
+    @Benchmark
+    public LegalMoves getLegalMoves() {
+        return service.getLegalMoves(midGame.getId(), midGamePlayerId);
+    }
+
+    @Benchmark
+    public int countNewSequencesCompleting() {
+        return lockAfterMove(beforeSequence, sequenceMove, sequenceTeam);
+    }
+
+    @Benchmark
+    public int countNewSequencesQuiet() {
+        return lockAfterMove(beforeQuiet, quietMove, quietTeam);
+    }
+
+    @Benchmark
+    public Deck shuffleDeck() {
+        return Deck.shuffled(deckRandom);
+    }
+
+    private int lockAfterMove(BitBoard before, SeededGames.Action move, int team) {
+        scratch.copyFrom(before);
+        scratch.place(move.x(), move.y(), team);
+        return scratch.lockNewSequences(team, move.x(), move.y(), null);
+    }
+
+    private static int totalSequences(Game game) {
+        Map<String, Integer> sequences = game.getSequencesByKey();
+        return sequences == null ? 0 : sequences.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,84 @@
+package com.quick.wildjack.wildjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Воспроизводимые позиции для бенчмарков: колода из seed, ходы выбирает Random с тем же seed.
+ * Партия записывается как список действий и затем проигрывается заново на любом GameService.
+ */
+final class SeededGames {
+
+    private SeededGames() {
+    }
+
+    /**
+     * Действие игрока, чей ход: обычный ход, обмен мёртвой карты или пропуск
+     */
+    record Action(char type, Card card, int cardIndex, int x, int y) {
+    }
+
+    /**
+     * Сыграть партию до конца (или до maxActions действий) и вернуть записанные действия
+     */
+    static List<Action> record(GameService service, long seed, int maxActions) {
+        Random random = new Random(seed);
+        Game game = start(service, seed);
+        List<Action> actions = new ArrayList<>();
+        while (game.getStatus() == GameStatus.STARTED && actions.size() < maxActions) {
+            Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+            LegalMoves moves = service.getLegalMoves(game.getId(), current.getId());
+            Action action = choose(moves, random);
+            game = apply(service, game, action);
+            actions.add(action);
+        }
+        return actions;
+    }
+
+    /**
+     * Новая партия на двоих с колодой из seed: создание, вход второго игрока и раздача
+     */
+    static Game start(GameService service, long seed) {
+        Game game = service.createGame(List.of("P0"));
+        game.setDeck(Deck.shuffled(new Random(seed)));
+        return service.joinGame(game.getId(), "P1");
+    }
+
+    static Game replay(GameService service, long seed, List<Action> actions, int count) {
+        Game game = start(service, seed);
+        for (int i = 0; i < count; i++) {
+            game = apply(service, game, actions.get(i));
+        }
+        return game;
+    }
+
+    static Game apply(GameService service, Game game, Action action) {
+        String playerId = game.getPlayers().get(game.getCurrentPlayerIndex()).getId();
+        return switch (action.type()) {
+            case 'M' -> service.makeMove(game.getId(), playerId, action.card(), action.cardIndex(), action.x(), action.y());
+            case 'E' -> service.exchangeDeadCard(game.getId(), playerId, action.card());
+            default -> service.skipTurnIfStuck(game.getId(), playerId);
+        };
+    }
+
+    private static Action choose(LegalMoves moves, Random random) {
+        List<Action> options = new ArrayList<>();
+        for (CardMoves cardMoves : moves.getCards()) {
+            for (int[] target : cardMoves.getTargets()) {
+                options.add(new Action('M', cardMoves.getCard(), cardMoves.getCardIndex(), target[0], target[1]));
+            }
+        }
+        if (!options.isEmpty()) {
+            return options.get(random.nextInt(options.size()));
+        }
+        if (moves.isExchangeAvailable()) {
+            for (CardMoves cardMoves : moves.getCards()) {
+                if (cardMoves.isDead()) {
+                    return new Action('E', cardMoves.getCard(), cardMoves.getCardIndex(), -1, -1);
+                }
+            }
+        }
+        return new Action('S', null, -1, -1, -1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Снимок партии в середине игры для Redis (Jackson против GameRedisSerializer)
+ * и публичное состояние для клиентов (JSON против бинарного WireCodec)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"7", "42"})
+    long seed;
+
+    @Param({"10", "40"})
+    int plies;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Game game;
+    private GameView view;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GameService service = new GameService(null, null, null, null, null, null);
+        List<SeededGames.Action> actions = SeededGames.record(service, seed, plies);
+        game = SeededGames.replay(service, seed, actions, actions.size());
+        json = objectMapper.writeValueAsBytes(game);
+        binary = GameRedisSerializer.encode(game);
+        view = GameView.of(game);
+    }
+
+    @Benchmark
+    public byte[] serializeGame() throws IOException {
+        return objectMapper.writeValueAsBytes(game);
+    }
+
+    @Benchmark
+    public Game deserializeGame() throws IOException {
+        return objectMapper.readValue(json, Game.class);
+    }
+
+    @Benchmark
+    public byte[] serializeGameBinary() {
+        return GameRedisSerializer.encode(game);
+    }
+
+    @Benchmark
+    public Game deserializeGameBinary() {
+        return GameRedisSerializer.decode(new ByteReader(binary));
+    }
+
+    @Benchmark
+    public byte[] viewJson() throws IOException {
+        return objectMapper.writeValueAsBytes(view);
+    }
+
+    @Benchmark
+    public byte[] viewBinary() {
+        return WireCodec.encodeView(view);
+    }
+}
@@ -0,0 +1,70 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Проверка подписи initData (HMAC-SHA256) — выполняется на каждый вход через Telegram
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelegramAuthBenchmark {
+
+    private static final String BOT_TOKEN = "123456:benchmark-token";
+
+    private TelegramAuthService authService;
+    private Map<String, String> params;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        authService = new TelegramAuthService(null, new ObjectMapper(), BOT_TOKEN, 3600, 300, false);
+        Map<String, String> data = new TreeMap<>();
+        data.put("auth_date", Long.toString(System.currentTimeMillis() / 1000));
+        data.put("query_id", "AAHbenchmarkQueryId");
+        data.put("user", "{\"id\":100000001,\"first_name\":\"Test\",\"last_name\":\"User\","
+                + "\"username\":\"test_user\",\"language_code\":\"ru\"}");
+        String dataCheckString = data.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining("\n"));
+        byte[] secretKey = hmac("WebAppData".getBytes(StandardCharsets.UTF_8), BOT_TOKEN);
+        data.put("hash", HexFormat.of().formatHex(hmac(secretKey, dataCheckString)));
+        params = data;
+        if (!authService.validateInitData(params).ok()) {
+            throw new IllegalStateException("Benchmark initData is not valid");
+        }
+    }
+
+    @Benchmark
+    public Object validateInitData() {
+        return authService.validateInitData(params);
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+}
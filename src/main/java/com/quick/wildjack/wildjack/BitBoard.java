@@ -0,0 +1,373 @@
+package com.quick.wildjack.wildjack;
+
+import java.util.Arrays;
+
+/**
+ * Битовое представление доски 10x10 для проверки правил.
+ * Клетка (x, y) — бит y * 10 + x: младшие 64 бита хранятся в *Lo, старшие 36 — в *Hi.
+ * Источник истины для клиента и Redis — Cell[][], битборд строится из него и обновляется вместе с ним.
+ */
+public final class BitBoard {
+
+    static final int SIZE = 10;
+    static final int CELLS = SIZE * SIZE;
+    static final int MAX_TEAMS = 3;
+    static final int SEQUENCE_LENGTH = 5;
+
+    static final long CORNERS_LO;
+    static final long CORNERS_HI;
+    static final long BOARD_HI = (1L << (CELLS - 64)) - 1;
+
+    // все окна из 5 клеток подряд (горизонталь, вертикаль, две диагонали)
+    static final long[] WINDOW_LO;
+    static final long[] WINDOW_HI;
+    static final int WINDOW_WORDS;
+    // для каждой клетки — битовый набор номеров окон, которые через неё проходят (не больше 20)
+    static final long[][] WINDOWS_BY_CELL;
+
+    static {
+        long cornersLo = 0;
+        long cornersHi = 0;
+        int[] corners = {index(0, 0), index(SIZE - 1, 0), index(0, SIZE - 1), index(SIZE - 1, SIZE - 1)};
+        for (int corner : corners) {
+            cornersLo |= bitLo(corner);
+            cornersHi |= bitHi(corner);
+        }
+        CORNERS_LO = cornersLo;
+        CORNERS_HI = cornersHi;
+
+        // порядок обхода тот же, что был у полного скана: x, затем y, затем направление
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        long[] lo = new long[CELLS * directions.length];
+        long[] hi = new long[CELLS * directions.length];
+        int count = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int[] dir : directions) {
+                    int endX = x + dir[0] * (SEQUENCE_LENGTH - 1);
+                    int endY = y + dir[1] * (SEQUENCE_LENGTH - 1);
+                    if (endX < 0 || endY < 0 || endX >= SIZE || endY >= SIZE) {
+                        continue;
+                    }
+                    for (int step = 0; step < SEQUENCE_LENGTH; step++) {
+                        int cell = index(x + dir[0] * step, y + dir[1] * step);
+                        lo[count] |= bitLo(cell);
+                        hi[count] |= bitHi(cell);
+                    }
+                    count++;
+                }
+            }
+        }
+        WINDOW_LO = Arrays.copyOf(lo, count);
+        WINDOW_HI = Arrays.copyOf(hi, count);
+        WINDOW_WORDS = (count + 63) / 64;
+
+        WINDOWS_BY_CELL = new long[CELLS][WINDOW_WORDS];
+        for (int w = 0; w < count; w++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (((WINDOW_LO[w] & bitLo(cell)) | (WINDOW_HI[w] & bitHi(cell))) != 0) {
+                    WINDOWS_BY_CELL[cell][w >>> 6] |= 1L << w;
+                }
+            }
+        }
+    }
+
+    private final long[] teamLo = new long[MAX_TEAMS];
+    private final long[] teamHi = new long[MAX_TEAMS];
+    private long sequenceLo;
+    private long sequenceHi;
+    // собранные окна, отложенные из-за пересечения с другой новой секвенцией того же хода:
+    // они проверяются снова при следующем ходе команды
+    private final long[][] pendingWindows = new long[MAX_TEAMS][WINDOW_WORDS];
+    // id карты на каждой клетке (общая таблица раскладки) и сколько свободных клеток осталось под каждую карту
+    private final byte[] cellCards;
+    private final byte[] freeMatchingCells = new byte[Card.COUNT];
+    // агрегаты для проверки «застрял ли игрок»: свободные клетки и фишки вне секвенций по командам
+    private int freeCells;
+    private final int[] unlockedChips = new int[MAX_TEAMS];
+    private int unlockedChipsTotal;
+
+    public BitBoard(byte[] cellCards) {
+        this.cellCards = cellCards;
+        for (byte cardId : cellCards) {
+            if (cardId >= 0) {
+                freeMatchingCells[cardId]++;
+                freeCells++;
+            }
+        }
+    }
+
+    /**
+     * Собрать битборд по текущему состоянию клеток
+     */
+    public static BitBoard from(Cell[][] board, byte[] cellCards) {
+        BitBoard bitBoard = new BitBoard(cellCards);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                Cell cell = board[y][x];
+                if (cell.getOwnerId() != null) {
+                    int team = cell.getTeam();
+                    if (team >= 0 && team < MAX_TEAMS) {
+                        bitBoard.place(x, y, team);
+                    }
+                }
+                if (cell.isSequence()) {
+                    bitBoard.sequenceLo |= bitLo(index(x, y));
+                    bitBoard.sequenceHi |= bitHi(index(x, y));
+                }
+            }
+        }
+        bitBoard.unlockedChipsTotal = 0;
+        for (int team = 0; team < MAX_TEAMS; team++) {
+            bitBoard.unlockedChips[team] = Long.bitCount(bitBoard.teamLo[team] & ~bitBoard.sequenceLo)
+                    + Long.bitCount(bitBoard.teamHi[team] & ~bitBoard.sequenceHi);
+            bitBoard.unlockedChipsTotal += bitBoard.unlockedChips[team];
+        }
+        // отложенные окна не сериализуются: любое собранное окно, которое ещё можно засчитать, снова кандидат
+        for (int team = 0; team < MAX_TEAMS; team++) {
+            for (int w = 0; w < WINDOW_LO.length; w++) {
+                if (bitBoard.isWindowComplete(w, team) && bitBoard.overlapWithSequences(w) <= 1) {
+                    bitBoard.pendingWindows[team][w >>> 6] |= 1L << w;
+                }
+            }
+        }
+        return bitBoard;
+    }
+
+    /**
+     * Скопировать состояние другого битборда без новых аллокаций (для симуляций бота)
+     */
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.teamLo, 0, teamLo, 0, MAX_TEAMS);
+        System.arraycopy(other.teamHi, 0, teamHi, 0, MAX_TEAMS);
+        sequenceLo = other.sequenceLo;
+        sequenceHi = other.sequenceHi;
+        for (int team = 0; team < MAX_TEAMS; team++) {
+            System.arraycopy(other.pendingWindows[team], 0, pendingWindows[team], 0, WINDOW_WORDS);
+        }
+        System.arraycopy(other.freeMatchingCells, 0, freeMatchingCells, 0, Card.COUNT);
+        freeCells = other.freeCells;
+        System.arraycopy(other.unlockedChips, 0, unlockedChips, 0, MAX_TEAMS);
+        unlockedChipsTotal = other.unlockedChipsTotal;
+    }
+
+    public BitBoard copy() {
+        BitBoard copy = new BitBoard(cellCards);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public void place(int x, int y, int team) {
+        int cell = index(x, y);
+        if (ownerOf(cell) < 0) {
+            if (cellCards[cell] >= 0) {
+                freeMatchingCells[cellCards[cell]]--;
+                freeCells--;
+            }
+            unlockedChips[team]++;
+            unlockedChipsTotal++;
+        }
+        teamLo[team] |= bitLo(cell);
+        teamHi[team] |= bitHi(cell);
+    }
+
+    public void remove(int x, int y) {
+        int cell = index(x, y);
+        int owner = ownerOf(cell);
+        if (owner < 0) {
+            return;
+        }
+        if (cellCards[cell] >= 0) {
+            freeMatchingCells[cellCards[cell]]++;
+            freeCells++;
+        }
+        if (!isSequence(x, y)) {
+            unlockedChips[owner]--;
+            unlockedChipsTotal--;
+        }
+        teamLo[owner] &= ~bitLo(cell);
+        teamHi[owner] &= ~bitHi(cell);
+    }
+
+    /**
+     * Сколько клеток под эту карту ещё свободно (0, 1 или 2)
+     */
+    public int freeMatchingCells(int cardId) {
+        return freeMatchingCells[cardId];
+    }
+
+    public boolean isFree(int cell) {
+        return cellCards[cell] >= 0 && ownerOf(cell) < 0;
+    }
+
+    /**
+     * Маски свободных клеток (цели двуглазого валета)
+     */
+    public long freeCellsLo() {
+        long occupied = CORNERS_LO;
+        for (int team = 0; team < MAX_TEAMS; team++) {
+            occupied |= teamLo[team];
+        }
+        return ~occupied;
+    }
+
+    public long freeCellsHi() {
+        long occupied = CORNERS_HI;
+        for (int team = 0; team < MAX_TEAMS; team++) {
+            occupied |= teamHi[team];
+        }
+        return ~occupied & BOARD_HI;
+    }
+
+    /**
+     * Маски фишек соперников вне секвенций (цели одноглазого валета)
+     */
+    public long removableChipsLo(int team) {
+        long chips = 0;
+        for (int other = 0; other < MAX_TEAMS; other++) {
+            if (other != team) {
+                chips |= teamLo[other];
+            }
+        }
+        return chips & ~sequenceLo;
+    }
+
+    public long removableChipsHi(int team) {
+        long chips = 0;
+        for (int other = 0; other < MAX_TEAMS; other++) {
+            if (other != team) {
+                chips |= teamHi[other];
+            }
+        }
+        return chips & ~sequenceHi;
+    }
+
+    private int ownerOf(int cell) {
+        long lo = bitLo(cell);
+        long hi = bitHi(cell);
+        for (int team = 0; team < MAX_TEAMS; team++) {
+            if (((teamLo[team] & lo) | (teamHi[team] & hi)) != 0) {
+                return team;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isSequence(int x, int y) {
+        int cell = index(x, y);
+        return ((sequenceLo & bitLo(cell)) | (sequenceHi & bitHi(cell))) != 0;
+    }
+
+    /**
+     * Есть ли свободная клетка под двуглазого валета
+     */
+    public boolean hasFreeCell() {
+        return freeCells > 0;
+    }
+
+    /**
+     * Есть ли фишка соперника вне секвенции (цель для одноглазого валета)
+     */
+    public boolean hasOpponentChip(int team) {
+        return unlockedChipsTotal - unlockedChips[team] > 0;
+    }
+
+    /**
+     * Количество полностью собранных командой окон из 5 клеток (углы засчитываются всем)
+     */
+    public int countCompleteWindows(int team) {
+        long ownedLo = teamLo[team] | CORNERS_LO;
+        long ownedHi = teamHi[team] | CORNERS_HI;
+        int count = 0;
+        for (int w = 0; w < WINDOW_LO.length; w++) {
+            if ((WINDOW_LO[w] & ~ownedLo) == 0 && (WINDOW_HI[w] & ~ownedHi) == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Находит новые секвенции команды после хода в клетку (x, y), помечает их клетки
+     * (и в битборде, и на доске) и возвращает их количество. Проверяются только окна
+     * через эту клетку и отложенные окна. Новая секвенция может делить с уже существующими
+     * не больше одной клетки и не может пересекаться с другой новой.
+     * board может быть null (симуляция бота) — тогда меняется только битборд.
+     */
+    public int lockNewSequences(int team, int x, int y, Cell[][] board) {
+        long[] cellWindows = WINDOWS_BY_CELL[index(x, y)];
+        long[] pending = pendingWindows[team];
+        long existingLo = sequenceLo;
+        long existingHi = sequenceHi;
+        long usedLo = existingLo;
+        long usedHi = existingHi;
+        int count = 0;
+        // окна перебираются по возрастанию номера — как при полном скане
+        for (int word = 0; word < WINDOW_WORDS; word++) {
+            long candidates = cellWindows[word] | pending[word];
+            pending[word] = 0;
+            while (candidates != 0) {
+                int bit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                int w = (word << 6) + bit;
+                if (!isWindowComplete(w, team) || overlapWithSequences(w) > 1) {
+                    continue;
+                }
+                long windowLo = WINDOW_LO[w];
+                long windowHi = WINDOW_HI[w];
+                if ((windowLo & usedLo & ~existingLo) != 0 || (windowHi & usedHi & ~existingHi) != 0) {
+                    pending[word] |= 1L << bit;
+                    continue;
+                }
+                count++;
+                usedLo |= windowLo;
+                usedHi |= windowHi;
+            }
+        }
+        if (count > 0) {
+            long lockedLo = usedLo & ~existingLo;
+            long lockedHi = usedHi & ~existingHi;
+            for (int owner = 0; owner < MAX_TEAMS; owner++) {
+                int locked = Long.bitCount(lockedLo & teamLo[owner]) + Long.bitCount(lockedHi & teamHi[owner]);
+                unlockedChips[owner] -= locked;
+                unlockedChipsTotal -= locked;
+            }
+            if (board != null) {
+                markSequence(lockedLo, 0, board);
+                markSequence(lockedHi, 64, board);
+            }
+            sequenceLo = usedLo;
+            sequenceHi = usedHi;
+        }
+        return count;
+    }
+
+    private boolean isWindowComplete(int w, int team) {
+        return (WINDOW_LO[w] & ~(teamLo[team] | CORNERS_LO)) == 0
+                && (WINDOW_HI[w] & ~(teamHi[team] | CORNERS_HI)) == 0;
+    }
+
+    private int overlapWithSequences(int w) {
+        return Long.bitCount(WINDOW_LO[w] & sequenceLo) + Long.bitCount(WINDOW_HI[w] & sequenceHi);
+    }
+
+    private static void markSequence(long mask, int offset, Cell[][] board) {
+        while (mask != 0) {
+            int cell = offset + Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            board[cell / SIZE][cell % SIZE].setSequence(true);
+        }
+    }
+
+    static int index(int x, int y) {
+        return y * SIZE + x;
+    }
+
+    static long bitLo(int cell) {
+        return cell < 64 ? 1L << cell : 0L;
+    }
+
+    static long bitHi(int cell) {
+        return cell >= 64 ? 1L << (cell - 64) : 0L;
+    }
+}
@@ -0,0 +1,174 @@
+package com.quick.wildjack.wildjack;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Встроенный бот: выбирает ход через Monte Carlo Tree Search.
+ * Думает вне полосы игры на отдельном ForkJoinPool (по умолчанию половина ядер),
+ * чтобы боты не отнимали потоки у запросов живых игроков; на ход — фиксированный бюджет времени.
+ */
+@Component
+public class BotPlayer {
+
+    private static final Logger log = LoggerFactory.getLogger(BotPlayer.class);
+
+    private final GameService gameService;
+    private final GamePublisher gamePublisher;
+    private final ForkJoinPool pool;
+    private final long thinkMs;
+    private final int searchesPerMove;
+    private final int maxIterations;
+    // игры, где бот уже думает над ходом — повторная рассылка того же состояния не запускает второй поиск
+    private final Set<String> thinking = ConcurrentHashMap.newKeySet();
+
+    public BotPlayer(GameService gameService,
+                     GamePublisher gamePublisher,
+                     @Value("${wildjack.bot.think-ms:1000}") long thinkMs,
+                     @Value("${wildjack.bot.parallelism:0}") int parallelism,
+                     @Value("${wildjack.bot.searches-per-move:2}") int searchesPerMove,
+                     @Value("${wildjack.bot.max-iterations:200000}") int maxIterations) {
+        this.gameService = gameService;
+        this.gamePublisher = gamePublisher;
+        this.thinkMs = thinkMs;
+        this.searchesPerMove = Math.max(1, searchesPerMove);
+        this.maxIterations = maxIterations;
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    @EventListener
+    public void onBotTurn(BotTurnEvent event) {
+        if (!thinking.add(event.gameId())) {
+            return;
+        }
+        pool.execute(() -> playTurn(event.gameId(), event.playerId()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    void playTurn(String gameId, String playerId) {
+        try {
+            SimState state = gameService.snapshotForBot(gameId, playerId);
+            if (state == null) {
+                thinking.remove(gameId);
+                return;
+            }
+            int action = chooseAction(state);
+            applyAndPublish(gameId, () -> apply(gameId, playerId, state, action));
+        } catch (RuntimeException e) {
+            log.warn("bot-move-failed gameId={} playerId={} error={}", gameId, playerId, e.getMessage());
+            playFallback(gameId, playerId);
+        }
+    }
+
+    /**
+     * Ход из поиска не прошёл (конфликт версий, отказ по правилам, ошибка Redis) — один повтор по свежему
+     * состоянию: первая допустимая карта, иначе обмен мёртвой или пропуск. Без него партия на одного
+     * стояла бы до таймаута хода
+     */
+    private void playFallback(String gameId, String playerId) {
+        try {
+            applyAndPublish(gameId, () -> {
+                Game game = gameService.getGameState(gameId);
+                if (game.getStatus() != GameStatus.STARTED
+                        || !game.getPlayers().get(game.getCurrentPlayerIndex()).getId().equals(playerId)) {
+                    // ход уже не за ботом — ходить нечего
+                    return null;
+                }
+                LegalMoves moves = gameService.getLegalMoves(gameId, playerId);
+                if (moves.isMustSkip()) {
+                    return gameService.skipTurnIfStuck(gameId, playerId);
+                }
+                for (CardMoves cardMoves : moves.getCards()) {
+                    if (!cardMoves.isDead()) {
+                        int[] target = cardMoves.getTargets().get(0);
+                        return gameService.makeMove(gameId, playerId, cardMoves.getCard(),
+                                cardMoves.getCardIndex(), target[0], target[1]);
+                    }
+                }
+                return gameService.exchangeDeadCard(gameId, playerId, moves.getCards().get(0).getCard());
+            });
+        } catch (RuntimeException e) {
+            thinking.remove(gameId);
+            log.warn("bot-fallback-failed gameId={} playerId={} error={}", gameId, playerId, e.getMessage());
+        }
+    }
+
+    private void applyAndPublish(String gameId, Supplier<Game> move) {
+        gameService.withGameLock(gameId, () -> {
+            Game game = move.get();
+            // снимаем отметку до рассылки: если ход снова у бота (после обмена), publish запустит новый поиск
+            thinking.remove(gameId);
+            if (game != null) {
+                gamePublisher.publish(game);
+            }
+            return game;
+        });
+    }
+
+    /**
+     * Root parallelization: несколько независимых деревьев до дедлайна, затем суммируем посещения первых ходов
+     */
+    int chooseAction(SimState state) {
+        int[] actions = new int[512];
+        int count = state.legalActions(actions);
+        if (count == 1) {
+            return actions[0];
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(thinkMs);
+        int observer = state.current;
+        List<ForkJoinTask<List<MctsSearch.Node>>> searches = new ArrayList<>();
+        for (int i = 0; i < searchesPerMove; i++) {
+            MctsSearch search = new MctsSearch(state, observer);
+            searches.add(pool.submit(() -> search.run(deadline, maxIterations)));
+        }
+        Map<Integer, Integer> visits = new HashMap<>();
+        for (ForkJoinTask<List<MctsSearch.Node>> search : searches) {
+            for (MctsSearch.Node node : search.join()) {
+                visits.merge(node.action, node.visits, Integer::sum);
+            }
+        }
+        int best = actions[0];
+        int bestVisits = -1;
+        for (Map.Entry<Integer, Integer> entry : visits.entrySet()) {
+            if (entry.getValue() > bestVisits) {
+                bestVisits = entry.getValue();
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    private Game apply(String gameId, String playerId, SimState state, int action) {
+        if (action == SimState.SKIP) {
+            return gameService.skipTurnIfStuck(gameId, playerId);
+        }
+        Card card = Card.of(SimState.cardOf(action));
+        if (SimState.isExchange(action)) {
+            return gameService.exchangeDeadCard(gameId, playerId, card);
+        }
+        // индекс карты из снимка: без него makeMove снял бы с руки все копии карты
+        int cell = SimState.cellOf(action);
+        int cardIndex = state.handIndexOf(state.current, card.getId());
+        return gameService.makeMove(gameId, playerId, card, cardIndex, cell % BitBoard.SIZE, cell / BitBoard.SIZE);
+    }
+}
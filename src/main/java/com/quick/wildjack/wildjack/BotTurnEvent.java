@@ -0,0 +1,7 @@
+package com.quick.wildjack.wildjack;
+
+/**
+ * Ход перешёл к боту — публикуется GamePublisher, обрабатывается BotPlayer
+ */
+public record BotTurnEvent(String gameId, String playerId) {
+}
@@ -0,0 +1,63 @@
+package com.quick.wildjack.wildjack;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Чтение формата ByteWriter; выход за конец буфера — IllegalArgumentException
+ */
+final class ByteReader {
+
+    private final byte[] buf;
+    private int pos;
+
+    ByteReader(byte[] buf) {
+        this.buf = buf;
+    }
+
+    int get() {
+        require(1);
+        return buf[pos++];
+    }
+
+    int getUnsigned() {
+        return get() & 0xFF;
+    }
+
+    byte[] getBytes(int length) {
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+        pos += length;
+        return bytes;
+    }
+
+    long getLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buf[pos++] & 0xFF);
+        }
+        return value;
+    }
+
+    String getString() {
+        int length = (getUnsigned() << 8) | getUnsigned();
+        if (length == 0xFFFF) {
+            return null;
+        }
+        require(length);
+        String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    boolean hasRemaining() {
+        return pos < buf.length;
+    }
+
+    private void require(int length) {
+        if (pos + length > buf.length) {
+            throw new IllegalArgumentException("Unexpected end of data at " + pos);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.quick.wildjack.wildjack;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Растущий буфер для бинарных форматов (WireCodec, GameRedisSerializer) без исключений ввода-вывода.
+ * Числа — big-endian, строки — длина (2 байта, 0xFFFF — null) и UTF-8.
+ */
+final class ByteWriter {
+
+    private byte[] buf;
+    private int size;
+
+    ByteWriter(int capacity) {
+        buf = new byte[capacity];
+    }
+
+    void put(int value) {
+        ensure(1);
+        buf[size++] = (byte) value;
+    }
+
+    void putBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, size, bytes.length);
+        size += bytes.length;
+    }
+
+    void putLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    void putString(String value) {
+        if (value == null) {
+            put(0xFF);
+            put(0xFF);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= 0xFFFF) {
+            throw new IllegalArgumentException("String too long: " + bytes.length);
+        }
+        put(bytes.length >>> 8);
+        put(bytes.length);
+        putBytes(bytes);
+    }
+
+    byte[] toBytes() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
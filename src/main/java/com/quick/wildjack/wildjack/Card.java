@@ -1,9 +1,90 @@
 package com.quick.wildjack.wildjack;
 
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
-@Data
-public class Card {
-    private String suit; // Hearts, Diamonds, Clubs, Spades
-    private String rank; // 2..10, J, Q, K, A
+/**
+ * Карта колоды. Всего 52 неизменяемых экземпляра, id = масть * 13 + ранг,
+ * поэтому карты сравниваются по ссылке или по id.
+ * В JSON по-прежнему {"suit": "Hearts", "rank": "10"}.
+ */
+public final class Card {
+
+    public static final int COUNT = 52;
+
+    private static final String[] SUITS = {"Hearts", "Diamonds", "Clubs", "Spades"};
+    private static final String[] RANKS = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A"};
+    private static final int JACK = 9;
+    private static final Card[] ALL = new Card[COUNT];
+
+    static {
+        for (int id = 0; id < COUNT; id++) {
+            ALL[id] = new Card((byte) id);
+        }
+    }
+
+    private final byte id;
+
+    private Card(byte id) {
+        this.id = id;
+    }
+
+    public static Card of(int id) {
+        if (id < 0 || id >= COUNT) {
+            throw new IllegalArgumentException("Unknown card id: " + id);
+        }
+        return ALL[id];
+    }
+
+    @JsonCreator
+    public static Card of(@JsonProperty("suit") String suit, @JsonProperty("rank") String rank) {
+        int suitIndex = indexOf(SUITS, suit);
+        int rankIndex = indexOf(RANKS, rank);
+        if (suitIndex < 0 || rankIndex < 0) {
+            throw new IllegalArgumentException("Unknown card: " + rank + " " + suit);
+        }
+        return ALL[suitIndex * RANKS.length + rankIndex];
+    }
+
+    @JsonIgnore
+    public byte getId() {
+        return id;
+    }
+
+    public String getSuit() {
+        return SUITS[id / RANKS.length];
+    }
+
+    public String getRank() {
+        return RANKS[id % RANKS.length];
+    }
+
+    /**
+     * Двуглазый валет (J бубны или трефы)
+     */
+    boolean twoEyedJack() {
+        return id % RANKS.length == JACK && (id / RANKS.length == 1 || id / RANKS.length == 2);
+    }
+
+    /**
+     * Одноглазый валет (J пики или червы)
+     */
+    boolean oneEyedJack() {
+        return id % RANKS.length == JACK && (id / RANKS.length == 0 || id / RANKS.length == 3);
+    }
+
+    @Override
+    public String toString() {
+        return getRank() + " " + getSuit();
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,13 @@
+package com.quick.wildjack.wildjack;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CardMoves {
+    private int cardIndex;
+    private Card card;
+    private boolean dead;          // сыграть некуда — карту можно обменять
+    private List<int[]> targets;   // клетки [x, y]
+}
@@ -1,13 +1,21 @@
 package com.quick.wildjack.wildjack;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import lombok.Data;
 
 @Data
 public class Cell {
     private Card card;       // карта на клетке
-    private Player owner;    // кто поставил фишку
+    private String ownerId;  // кто поставил фишку
+    private int team = -1;   // команда владельца фишки, -1 — клетка свободна
     private boolean isCorner; // corners бесплатные
     @JsonProperty("isSequence")
     private boolean isSequence;
+
+    // старый формат в Redis: владелец хранился целиком, команда восстанавливается при загрузке
+    @JsonSetter("owner")
+    private void setLegacyOwner(Player owner) {
+        this.ownerId = owner == null ? null : owner.getId();
+    }
 }
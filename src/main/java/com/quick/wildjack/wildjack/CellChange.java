@@ -0,0 +1,17 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Изменённая клетка в дельте: новый владелец (null — клетка освободилась) и признак секвенции
+ */
+@Data
+public class CellChange {
+    private int x;
+    private int y;
+    private String ownerId;
+    private int team = -1;
+    @JsonProperty("isSequence")
+    private boolean isSequence;
+}
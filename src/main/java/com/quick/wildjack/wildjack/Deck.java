@@ -0,0 +1,86 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Колода из двух стандартных колод: массив id карт и курсор следующей карты.
+ * Перемешивается один раз при создании, взятие карты и размер — O(1).
+ * В JSON пишется как base64 от id оставшихся карт.
+ */
+public final class Deck {
+
+    private final byte[] cards;
+    private int cursor;
+
+    private Deck(byte[] cards) {
+        this.cards = cards;
+    }
+
+    public static Deck shuffled(Random random) {
+        byte[] cards = new byte[Card.COUNT * 2];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = (byte) (i % Card.COUNT);
+        }
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte temp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = temp;
+        }
+        return new Deck(cards);
+    }
+
+    /**
+     * Взять верхнюю карту, null если колода пуста
+     */
+    public Card draw() {
+        if (cursor >= cards.length) {
+            return null;
+        }
+        return Card.of(cards[cursor++]);
+    }
+
+    public int size() {
+        return cards.length - cursor;
+    }
+
+    public boolean isEmpty() {
+        return cursor >= cards.length;
+    }
+
+    @JsonValue
+    public byte[] toBytes() {
+        return Arrays.copyOfRange(cards, cursor, cards.length);
+    }
+
+    public static Deck fromBytes(byte[] remaining) {
+        for (byte id : remaining) {
+            Card.of(id);
+        }
+        return new Deck(remaining.clone());
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    static Deck fromJson(Object value) {
+        if (value instanceof String encoded) {
+            return fromBytes(Base64.getDecoder().decode(encoded));
+        }
+        if (value instanceof List<?> legacy) {
+            // старый формат: массив {"suit", "rank"}
+            byte[] remaining = new byte[legacy.size()];
+            for (int i = 0; i < remaining.length; i++) {
+                Map<?, ?> card = (Map<?, ?>) legacy.get(i);
+                remaining[i] = Card.of((String) card.get("suit"), (String) card.get("rank")).getId();
+            }
+            return new Deck(remaining);
+        }
+        throw new IllegalArgumentException("Unsupported deck format");
+    }
+}
@@ -1,15 +1,18 @@
 package com.quick.wildjack.wildjack;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 
 import java.util.List;
 import java.util.Map;
 @Data
+@JsonIgnoreProperties(value = "deckSize", allowGetters = true)
 public class Game {
     private String id;
     private List<Player> players;
     private Cell[][] board;         // 10x10
-    private List<Card> deck;        // оставшиеся карты
+    private Deck deck;              // оставшиеся карты
     private int currentPlayerIndex; // чей ход
 
     // NEW:
@@ -21,4 +24,15 @@ public class Game {
     private String winnerKey;           // playerId or team key
     private Map<String, Integer> sequencesByKey;
     private LastMove lastMove;
+    private long version;               // растёт на каждое изменение; дельты рассылки ссылаются на него
+    private long eventSeq;              // сколько событий журнала уже учтено в этом снимке
+    private boolean exchangeUsedThisTurn; // мёртвую карту в этом ходу уже меняли
+
+    @JsonIgnore
+    private BitBoard bitBoard;      // производное от board, в JSON не пишется
+
+    // для клиента: сколько карт осталось в колоде
+    public int getDeckSize() {
+        return deck == null ? 0 : deck.size();
+    }
 }
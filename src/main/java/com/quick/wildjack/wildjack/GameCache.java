@@ -0,0 +1,141 @@
+package com.quick.wildjack.wildjack;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Партии в памяти инстанса. Источник истины — Redis, поэтому любую партию можно выгрузить
+ * и прочитать заново: кэш ограничен по размеру (max-size, при переполнении уходят давно не читанные)
+ * и по простою (idle-ms). Для каждой партии помнит время последнего чтения и последнего изменения —
+ * по второму GameReaper закрывает брошенные лобби (lobby-idle-ms).
+ */
+@Component
+public class GameCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long idleMs;
+    private final long lobbyIdleMs;
+
+    public GameCache(@Value("${wildjack.cache.max-size:10000}") int maxSize,
+                     @Value("${wildjack.cache.idle-ms:1800000}") long idleMs,
+                     @Value("${wildjack.cache.lobby-idle-ms:1800000}") long lobbyIdleMs) {
+        this.maxSize = Math.max(1, maxSize);
+        this.idleMs = idleMs;
+        this.lobbyIdleMs = lobbyIdleMs;
+    }
+
+    public long getIdleMs() {
+        return idleMs;
+    }
+
+    public long getLobbyIdleMs() {
+        return lobbyIdleMs;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String gameId) {
+        return entries.containsKey(gameId);
+    }
+
+    /**
+     * Партия из памяти; чтение продлевает ей жизнь в кэше
+     */
+    public Game get(String gameId) {
+        Entry entry = entries.get(gameId);
+        if (entry == null) {
+            return null;
+        }
+        entry.accessedAt = System.currentTimeMillis();
+        return entry.game;
+    }
+
+    /**
+     * Партия из памяти без продления: для уборки, чтобы проверка не держала партию в кэше
+     */
+    public Game peek(String gameId) {
+        Entry entry = entries.get(gameId);
+        return entry == null ? null : entry.game;
+    }
+
+    /**
+     * Положить партию после загрузки или изменения
+     */
+    public void put(Game game) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(game.getId());
+        if (entry != null && entry.game == game) {
+            entry.accessedAt = now;
+            entry.changedAt = now;
+            return;
+        }
+        entries.put(game.getId(), new Entry(game, now));
+    }
+
+    public void remove(String gameId) {
+        entries.remove(gameId);
+    }
+
+    /**
+     * Сколько партий лишних сверх max-size — самые давно не читанные, с запасом в 1/8,
+     * чтобы не сортировать кэш на каждой новой партии
+     */
+    public List<String> overflow() {
+        int excess = entries.size() - maxSize;
+        if (excess <= 0) {
+            return List.of();
+        }
+        return entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().accessedAt))
+                .limit(excess + maxSize / 8)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Партии, которые не читали дольше idle-ms
+     */
+    public List<String> idle(long now) {
+        List<String> ids = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            if (now - entry.accessedAt > idleMs) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Партии, которые не менялись дольше lobby-idle-ms
+     */
+    public List<String> unchanged(long now) {
+        List<String> ids = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            if (now - entry.changedAt > lobbyIdleMs) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private static final class Entry {
+        final Game game;
+        volatile long accessedAt;
+        volatile long changedAt;
+
+        Entry(Game game, long now) {
+            this.game = game;
+            this.accessedAt = now;
+            this.changedAt = now;
+        }
+    }
+}
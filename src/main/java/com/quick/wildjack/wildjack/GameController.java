@@ -1,8 +1,8 @@
 package com.quick.wildjack.wildjack;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,59 +14,162 @@ import java.util.List;
 public class GameController {
 
     private final GameService gameService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final GamePublisher gamePublisher;
+    private final SessionTokens sessionTokens;
 
 
+    // создатель — первый игрок партии: ему своя рука и токен сессии
     @PostMapping("/create")
-    public ResponseEntity<Game> createGame(@RequestBody List<String> playerNames) {
-        Game game = gameService.createGame(playerNames);
-
-        // ✅ сразу отправим состояние в топик, чтобы создатель мог подписаться и получать апдейты
-        messagingTemplate.convertAndSend("/topic/game/" + game.getId(), game);
+    public ResponseEntity<JoinGameResponse> createGame(@RequestBody List<String> playerNames,
+                                                       @RequestParam(defaultValue = "false") boolean bot,
+                                                       @RequestHeader(value = "X-Telegram-Id", required = false) Long telegramId) {
+        Game created = gameService.createGame(playerNames, telegramId);
+        JoinGameResponse response = gameService.withGameLock(created.getId(), () -> {
+            Game game = created;
+            // соперник-бот сразу занимает свободное место (игра на одного иначе ждёт вечно)
+            if (bot) {
+                game = addBotAndPublish(game.getId());
+            } else {
+                // ✅ сразу отправим состояние в топик, чтобы создатель мог подписаться и получать апдейты
+                gamePublisher.publish(game);
+            }
+            String playerId = game.getPlayers().get(0).getId();
+            return JoinGameResponse.of(game, playerId, sessionTokens.issue(playerId));
+        });
+
+        return ResponseEntity.ok(response);
+    }
 
-        return ResponseEntity.ok(game);
+    @PostMapping("/{gameId}/bot")
+    public ResponseEntity<GameView> addBot(@PathVariable String gameId) {
+        return ResponseEntity.ok(gameService.withGameLock(gameId, () -> GameView.of(addBotAndPublish(gameId))));
     }
 
     @PostMapping("/{gameId}/join")
     public ResponseEntity<JoinGameResponse> joinGame(@PathVariable String gameId,
-                                                     @RequestParam String playerName) {
-        Game game = gameService.joinGame(gameId, playerName);
-
-        String playerId = game.getPlayers().stream()
-                .filter(p -> p.getName().equalsIgnoreCase(playerName))
-                .findFirst()
-                .orElseThrow()
-                .getId();
-
-        // ✅ вот это ключевое: после join рассылаем актуальный game всем
-        messagingTemplate.convertAndSend("/topic/game/" + game.getId(), game);
+                                                     @RequestParam String playerName,
+                                                     @RequestHeader(value = "X-Telegram-Id", required = false) Long telegramId) {
+        JoinGameResponse response = gameService.withGameLock(gameId, () -> {
+            Game game = gameService.joinGame(gameId, playerName, telegramId);
+
+            String playerId = game.getPlayers().stream()
+                    .filter(p -> p.getName().equalsIgnoreCase(playerName))
+                    .findFirst()
+                    .orElseThrow()
+                    .getId();
+
+            // ✅ вот это ключевое: после join рассылаем актуальный game всем
+            gamePublisher.publish(game);
+            return JoinGameResponse.of(game, playerId, sessionTokens.issue(playerId));
+        });
+
+        return ResponseEntity.ok(response);
+    }
 
-        return ResponseEntity.ok(new JoinGameResponse(game, playerId));
+    private Game addBotAndPublish(String gameId) {
+        return gameService.withGameLock(gameId, () -> {
+            Game game = gameService.addBot(gameId);
+            gamePublisher.publish(game);
+            return game;
+        });
     }
 
+    // вернуться в партию по токену сессии из ответа create/join
     @PostMapping("/{gameId}/rejoin")
     public ResponseEntity<JoinGameResponse> rejoinGame(@PathVariable String gameId,
                                                        @RequestBody RejoinRequest request) {
-        return ResponseEntity.ok(gameService.rejoinGame(gameId, request.getSessionToken()));
+        String playerId = sessionTokens.requirePlayerId(request.getSessionToken());
+        JoinGameResponse response = gameService.withGameLock(gameId, () ->
+                JoinGameResponse.of(gameService.rejoinGame(gameId, playerId), playerId, request.getSessionToken()));
+        return ResponseEntity.ok(response);
     }
 
 
+    // полное публичное состояние — для клиента, у которого разошлась версия с дельтами (руки не отдаются)
+    @GetMapping("/{gameId}")
+    public ResponseEntity<GameView> getGame(@PathVariable String gameId) {
+        return ResponseEntity.ok(GameView.of(gameService.getGameState(gameId)));
+    }
+
+    // то же в бинарном формате WireCodec — для клиентов с Accept: application/x-wildjack
+    @GetMapping(value = "/{gameId}", produces = WireCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getGameBinary(@PathVariable String gameId) {
+        return ResponseEntity.ok(WireCodec.encodeView(GameView.of(gameService.getGameState(gameId))));
+    }
+
+    // подсказки показывают руку — только самому игроку, по токену сессии
+    @GetMapping("/{gameId}/legal-moves")
+    public ResponseEntity<LegalMoves> getLegalMoves(@PathVariable String gameId,
+                                                    @RequestHeader("X-Session-Token") String sessionToken) {
+        return ResponseEntity.ok(gameService.getLegalMoves(gameId, sessionTokens.requirePlayerId(sessionToken)));
+    }
+
+    @GetMapping(value = "/{gameId}/legal-moves", produces = WireCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getLegalMovesBinary(@PathVariable String gameId,
+                                                      @RequestHeader("X-Session-Token") String sessionToken) {
+        String playerId = sessionTokens.requirePlayerId(sessionToken);
+        return ResponseEntity.ok(WireCodec.encodeHints(gameService.getLegalMoves(gameId, playerId)));
+    }
+
+    // действие игрока (как MoveMessage в STOMP) — сюда пересылает ходы инстанс, к которому подключён игрок.
+    // игрок — из токена сессии, а не из тела запроса
+    @PostMapping("/{gameId}/action")
+    public ResponseEntity<String> applyAction(@PathVariable String gameId,
+                                              @RequestHeader(GameForwarder.SESSION_TOKEN_HEADER) String sessionToken,
+                                              @RequestBody MoveMessage message) {
+        message.setGameId(gameId);
+        try {
+            message.setPlayerId(sessionTokens.requirePlayerId(sessionToken));
+            gameService.withGameLock(gameId, () -> {
+                Game game = gameService.applyAction(message);
+                gamePublisher.publish(game);
+                return game;
+            });
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    // таймаут хода, обнаруженный другим инстансом — только с подписью инстанса
+    @PostMapping("/{gameId}/timeout")
+    public ResponseEntity<Void> checkTimeout(@PathVariable String gameId,
+                                             @RequestHeader(value = GameForwarder.FORWARDED_HEADER, required = false)
+                                             String nodeSignature) {
+        if (!sessionTokens.isNodeRequest(gameId, nodeSignature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        gameService.withGameLock(gameId, () -> {
+            Game game = gameService.finishIfExpired(gameId);
+            if (game != null) {
+                gamePublisher.publish(game);
+            }
+            return game;
+        });
+        return ResponseEntity.ok().build();
+    }
+
+    // в ответе — публичное состояние; новая рука приходит в /user/queue/hand.
+    // ходит только владелец токена сессии, как в STOMP
     @PostMapping("/{gameId}/move")
-    public ResponseEntity<Game> makeMove(
+    public ResponseEntity<GameView> makeMove(
             @PathVariable String gameId,
-            @RequestParam String playerId,
+            @RequestHeader("X-Session-Token") String sessionToken,
             @RequestBody MoveRequest moveRequest
     ) {
-        return ResponseEntity.ok(
-                gameService.makeMove(
-                        gameId,
-                        playerId,
-                        moveRequest.getCard(),
-                        moveRequest.getCardIndex(),
-                        moveRequest.getX(),
-                        moveRequest.getY()
-                )
-        );
+        String playerId = sessionTokens.requirePlayerId(sessionToken);
+        return ResponseEntity.ok(gameService.withGameLock(gameId, () -> {
+            Game game = gameService.makeMove(
+                    gameId,
+                    playerId,
+                    moveRequest.getCard(),
+                    moveRequest.getCardIndex(),
+                    moveRequest.getX(),
+                    moveRequest.getY()
+            );
+            gamePublisher.publish(game);
+            return GameView.of(game);
+        }));
     }
 
 }
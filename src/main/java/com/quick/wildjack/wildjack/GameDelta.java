@@ -0,0 +1,28 @@
+package com.quick.wildjack.wildjack;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Изменения партии между двумя рассылками (/topic/game/{id}/delta).
+ * Клиент применяет дельту, только если его версия равна baseVersion;
+ * иначе берёт полное состояние через GET /api/games/{id}.
+ */
+@Data
+public class GameDelta {
+    private String gameId;
+    private long baseVersion;
+    private long version;
+    private GameStatus status;
+    private GameResult result;
+    private String winnerKey;
+    private int currentPlayerIndex;
+    private long turnDeadlineEpochMs;
+    private int deckSize;
+    private Map<String, Integer> sequencesByKey;
+    private LastMove lastMove;
+    private List<CellChange> cells;             // только изменённые клетки, включая новые секвенции
+    private Map<String, Integer> handSizes;     // размеры изменившихся рук; сами карты — в /user/queue/hand
+}
@@ -0,0 +1,55 @@
+package com.quick.wildjack.wildjack;
+
+import lombok.Data;
+
+/**
+ * Действие в партии для журнала событий в Redis.
+ * Несёт время действия: дедлайны и таймауты при восстановлении считаются от него, а не от текущего времени.
+ */
+@Data
+public class GameEvent {
+
+    public enum Type {
+        MOVE, EXCHANGE, SKIP, TIMEOUT
+    }
+
+    private long seq;           // порядковый номер в партии (Game.eventSeq после применения)
+    private Type type;
+    private String playerId;
+    private Card card;
+    private Integer cardIndex;
+    private int x;
+    private int y;
+    private long atEpochMs;
+
+    public static GameEvent move(String playerId, Card card, Integer cardIndex, int x, int y, long atEpochMs) {
+        GameEvent event = of(Type.MOVE, playerId, atEpochMs);
+        event.setCard(card);
+        event.setCardIndex(cardIndex);
+        event.setX(x);
+        event.setY(y);
+        return event;
+    }
+
+    public static GameEvent exchange(String playerId, Card card, long atEpochMs) {
+        GameEvent event = of(Type.EXCHANGE, playerId, atEpochMs);
+        event.setCard(card);
+        return event;
+    }
+
+    public static GameEvent skip(String playerId, long atEpochMs) {
+        return of(Type.SKIP, playerId, atEpochMs);
+    }
+
+    public static GameEvent timeout(long atEpochMs) {
+        return of(Type.TIMEOUT, null, atEpochMs);
+    }
+
+    private static GameEvent of(Type type, String playerId, long atEpochMs) {
+        GameEvent event = new GameEvent();
+        event.setType(type);
+        event.setPlayerId(playerId);
+        event.setAtEpochMs(atEpochMs);
+        return event;
+    }
+}
@@ -0,0 +1,106 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал действий партии в Redis (список game:{id}:events).
+ * В режиме wildjack.redis.mode=events на ход дописывается одно событие вместо полного снимка Game,
+ * снимок пишется раз в snapshot-every событий, после чего журнал очищается.
+ * В режиме snapshot (по умолчанию) журнал не используется.
+ * Событие дописывается только поверх ожидаемой версии партии (game:{id}:version), как и снимок в GameService;
+ * каждая запись продлевает ключам партии срок жизни game-ttl-ms.
+ */
+@Component
+public class GameEventLog {
+
+    // KEYS: журнал, версия, снимок; ARGV: ожидаемая версия, новая версия, событие, TTL в мс
+    static final RedisScript<Long> APPEND = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[2])
+            if current and current ~= ARGV[1] then
+                return 0
+            end
+            redis.call('RPUSH', KEYS[1], ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[4])
+            redis.call('PEXPIRE', KEYS[3], ARGV[4])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int snapshotEvery;
+    private final long gameTtlMs;
+
+    public GameEventLog(StringRedisTemplate redisTemplate,
+                        ObjectMapper objectMapper,
+                        @Value("${wildjack.redis.mode:snapshot}") String mode,
+                        @Value("${wildjack.redis.snapshot-every:20}") int snapshotEvery,
+                        @Value("${wildjack.redis.game-ttl-ms:172800000}") long gameTtlMs) {
+        if (!mode.equals("snapshot") && !mode.equals("events")) {
+            throw new RuntimeException("Unknown wildjack.redis.mode: " + mode);
+        }
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = mode.equals("events");
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.gameTtlMs = gameTtlMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSnapshotEvery() {
+        return snapshotEvery;
+    }
+
+    public long getGameTtlMs() {
+        return gameTtlMs;
+    }
+
+    /**
+     * Дописать событие; false — версия партии в Redis уже не expectedVersion
+     */
+    public boolean append(String gameId, GameEvent event, long expectedVersion, long newVersion) {
+        String value;
+        try {
+            value = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize game event", e);
+        }
+        Long appended = redisTemplate.execute(APPEND,
+                List.of(key(gameId), GameService.versionKey(gameId), GameService.redisKey(gameId)),
+                String.valueOf(expectedVersion), String.valueOf(newVersion), value, String.valueOf(gameTtlMs));
+        return appended != null && appended != 0;
+    }
+
+    public List<GameEvent> read(String gameId) {
+        List<String> values = redisTemplate.opsForList().range(key(gameId), 0, -1);
+        List<GameEvent> events = new ArrayList<>();
+        if (values == null) {
+            return events;
+        }
+        try {
+            for (String value : values) {
+                events.add(objectMapper.readValue(value, GameEvent.class));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read game events", e);
+        }
+        return events;
+    }
+
+    static String key(String gameId) {
+        return "game:" + gameId + ":events";
+    }
+}
@@ -0,0 +1,118 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+/**
+ * Доставка обновлений партии на все инстансы. Simple broker рассылает только своим сессиям,
+ * поэтому в режиме wildjack.fanout.mode=redis обновление один раз публикуется в канал game:fanout,
+ * и каждый инстанс (включая отправителя) отдаёт его своим подписчикам через GamePublisher.deliver.
+ * В режиме local (по умолчанию) доставка сразу локальная.
+ * В сообщении — снимок Game (формат GameRedisSerializer) и подсказки, посчитанные на инстансе,
+ * где партия изменилась: состояние обмена карт есть только там.
+ */
+@Component
+public class GameFanout {
+
+    static final String CHANNEL = "game:fanout";
+
+    private static final Logger log = LoggerFactory.getLogger(GameFanout.class);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean redis;
+    private BiConsumer<Game, LegalMoves> receiver;
+    private RedisMessageListenerContainer container;
+    private ExecutorService deliveryExecutor;
+
+    public GameFanout(RedisConnectionFactory connectionFactory,
+                      StringRedisTemplate redisTemplate,
+                      ObjectMapper objectMapper,
+                      @Value("${wildjack.fanout.mode:local}") String mode) {
+        if (!mode.equals("local") && !mode.equals("redis")) {
+            throw new RuntimeException("Unknown wildjack.fanout.mode: " + mode);
+        }
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redis = mode.equals("redis");
+    }
+
+    /**
+     * Подключить локальную доставку; в режиме redis — подписаться на канал
+     */
+    void start(BiConsumer<Game, LegalMoves> receiver) {
+        this.receiver = receiver;
+        if (!redis) {
+            return;
+        }
+        // один поток доставки — обновления партии уходят подписчикам в порядке публикации
+        deliveryExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "game-fanout"));
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(deliveryExecutor);
+        container.addMessageListener((message, pattern) -> receive(message.getBody()), new ChannelTopic(CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+        if (deliveryExecutor != null) {
+            deliveryExecutor.shutdown();
+        }
+    }
+
+    void broadcast(Game game, LegalMoves hints) {
+        if (!redis) {
+            receiver.accept(game, hints);
+            return;
+        }
+        redisTemplate.convertAndSend(CHANNEL, encode(game, hints));
+    }
+
+    private void receive(byte[] body) {
+        try {
+            FanoutMessage message = objectMapper.readValue(body, FanoutMessage.class);
+            Game game = GameRedisSerializer.decode(new ByteReader(message.getGame()));
+            receiver.accept(game, message.getHints());
+        } catch (IOException | RuntimeException e) {
+            log.warn("fanout-receive-failed error={}", e.getMessage());
+        }
+    }
+
+    String encode(Game game, LegalMoves hints) {
+        FanoutMessage message = new FanoutMessage();
+        message.setGame(GameRedisSerializer.encode(game));
+        message.setHints(hints);
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot encode fanout message for game " + game.getId(), e);
+        }
+    }
+
+    @Data
+    static class FanoutMessage {
+        private byte[] game;
+        private LegalMoves hints;
+    }
+}
@@ -0,0 +1,323 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Запись итогов законченных партий в Postgres в фоне. Итоги партии (снимок и изменения статистики)
+ * кладутся в Redis-список game:finished:outbox тем же скриптом, что снимает партию из Redis (GameService),
+ * поэтому ход, завершивший партию, не ходит в базу, а итоги не теряются ни при падении инстанса,
+ * ни при недоступной базе.
+ * Поток game-finalizer берёт из начала списка до batch-size записей, пишет их одной транзакцией —
+ * вставка в finished_games и атомарные приращения статистики в users по telegram_id — и только после
+ * коммита удаляет записи из списка. Неудачная пачка повторяется с растущей паузой (до max-retry-ms),
+ * пока не запишется; записи не отбрасываются. Список разбирает один инстанс — держатель аренды
+ * game:finished:writer, остальные ждут её истечения.
+ * Ключ идемпотентности — id партии: вставка ON CONFLICT DO NOTHING ... RETURNING id возвращает ровно
+ * вставленные строки, и статистика меняется только по ним, поэтому повтор пачки после сбоя
+ * (например, коммит прошёл, а удаление из списка — нет) ничего не задвоит.
+ */
+@Component
+public class GameFinalizer {
+
+    private static final Logger log = LoggerFactory.getLogger(GameFinalizer.class);
+
+    static final String OUTBOX_KEY = "game:finished:outbox";
+    // записи, которые не удалось разобрать: не удаляются, а откладываются сюда для разбора руками
+    static final String DEAD_KEY = "game:finished:dead";
+    static final String WRITER_KEY = "game:finished:writer";
+
+    // параметров в одном запросе у Postgres не больше 65535, на партию их три
+    private static final int MAX_BATCH_SIZE = 1000;
+    // сколько ждать, пока поток допишет текущую пачку при остановке
+    private static final long STOP_WAIT_MS = 30_000;
+
+    private static final RedisScript<Long> HOLD_WRITER = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current and current ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_WRITER = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    // payload — @Lob, в Postgres это large object (oid): создаётся на стороне базы из текста в UTF-8,
+    // только для партий, которых ещё нет; RETURNING отдаёт id реально вставленных строк
+    private static final String INSERT_FINISHED_GAMES = """
+            INSERT INTO finished_games (id, payload, finished_at)
+            SELECT v.id, lo_from_bytea(0, convert_to(v.payload, 'UTF8')), v.finished_at
+            FROM (VALUES %s) AS v(id, payload, finished_at)
+            WHERE NOT EXISTS (SELECT 1 FROM finished_games f WHERE f.id = v.id)
+            ON CONFLICT (id) DO NOTHING
+            RETURNING id
+            """;
+    private static final String INSERT_ROW = "(?, ?, CAST(? AS timestamptz))";
+
+    private static final String UPDATE_STATS = """
+            UPDATE users SET
+                games_played = COALESCE(games_played, 0) + 1,
+                wins = COALESCE(wins, 0) + ?,
+                losses = COALESCE(losses, 0) + ?,
+                rating = GREATEST(0, COALESCE(rating, 0) + ?),
+                updated_at = ?
+            WHERE telegram_id = ?
+            """;
+
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long pollMs;
+    private final long retryMs;
+    private final long maxRetryMs;
+    private final long leaseMs;
+    private final String writerId = UUID.randomUUID().toString();
+    private Thread worker;
+    private volatile boolean running;
+
+    public GameFinalizer(StringRedisTemplate redisTemplate,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${wildjack.finalizer.batch-size:200}") int batchSize,
+                         @Value("${wildjack.finalizer.poll-ms:500}") long pollMs,
+                         @Value("${wildjack.finalizer.retry-ms:1000}") long retryMs,
+                         @Value("${wildjack.finalizer.max-retry-ms:60000}") long maxRetryMs,
+                         @Value("${wildjack.finalizer.lease-ms:30000}") long leaseMs) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.min(MAX_BATCH_SIZE, Math.max(1, batchSize));
+        this.pollMs = Math.max(1, pollMs);
+        this.retryMs = Math.max(1, retryMs);
+        this.maxRetryMs = Math.max(this.retryMs, maxRetryMs);
+        this.leaseMs = leaseMs;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this::run, "game-finalizer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Остановить поток; недописанное остаётся в outbox и будет записано этим или другим инстансом
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(STOP_WAIT_MS);
+        }
+        try {
+            redisTemplate.execute(RELEASE_WRITER, List.of(WRITER_KEY), writerId);
+        } catch (RuntimeException e) {
+            log.warn("finalizer-release-failed error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * Запись итогов партии для outbox: снимок в бинарном формате и изменения статистики людей-игроков.
+     * Кладёт её в список скрипт, снимающий партию из Redis
+     */
+    byte[] outcome(Game game, List<StatChange> stats) {
+        Outcome outcome = new Outcome(game.getId(), System.currentTimeMillis(), GameRedisSerializer.encode(game), stats);
+        try {
+            return objectMapper.writeValueAsBytes(outcome);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize finished game", e);
+        }
+    }
+
+    /**
+     * В outbox появилась запись — не ждать poll-ms
+     */
+    void wakeUp() {
+        Thread current = worker;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    public long getOutboxSize() {
+        Long size = redisTemplate.opsForList().size(OUTBOX_KEY);
+        return size == null ? 0 : size;
+    }
+
+    private void run() {
+        long backoff = retryMs;
+        while (running) {
+            try {
+                if (!drainOnce()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollMs));
+                }
+                backoff = retryMs;
+            } catch (RuntimeException e) {
+                // база или Redis недоступны — пачка остаётся в outbox, повторяем с растущей паузой
+                log.warn("finalizer-batch-failed retryInMs={} error={}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(maxRetryMs, backoff * 2);
+            }
+        }
+    }
+
+    /**
+     * Записать одну пачку из начала outbox; false — писать нечего (список пуст или его разбирает другой инстанс)
+     */
+    boolean drainOnce() {
+        Long holding = redisTemplate.execute(HOLD_WRITER, List.of(WRITER_KEY), writerId, String.valueOf(leaseMs));
+        if (holding == null || holding == 0) {
+            return false;
+        }
+        List<String> raw = redisTemplate.opsForList().range(OUTBOX_KEY, 0, batchSize - 1);
+        if (raw == null || raw.isEmpty()) {
+            return false;
+        }
+        Map<String, Row> batch = new LinkedHashMap<>();
+        for (String record : raw) {
+            Row row = parse(record);
+            if (row == null) {
+                // не удаляем: откладываем в отдельный список, чтобы она не держала очередь
+                log.error("finalizer-bad-record movedTo={} length={}", DEAD_KEY, record.length());
+                redisTemplate.opsForList().rightPush(DEAD_KEY, record);
+                redisTemplate.opsForList().remove(OUTBOX_KEY, 1, record);
+                continue;
+            }
+            batch.put(record, row);
+        }
+        if (!batch.isEmpty()) {
+            write(new ArrayList<>(batch.values()));
+            // только после коммита; повтор уже записанной партии ничего не изменит
+            for (String record : batch.keySet()) {
+                redisTemplate.opsForList().remove(OUTBOX_KEY, 1, record);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Одна транзакция на пачку: вставка партий, затем статистика только по реально вставленным
+     */
+    void write(List<Row> rows) {
+        // одна строка на партию, первая из пачки: lo_from_bytea выполняется для каждой строки VALUES
+        // до ON CONFLICT, и у отброшенного дубля остался бы ничейный large object.
+        // Из outbox вызывающий всё равно удаляет все исходные записи
+        Map<String, Row> unique = new LinkedHashMap<>();
+        for (Row row : rows) {
+            unique.putIfAbsent(row.gameId(), row);
+        }
+        List<Row> batch = new ArrayList<>(unique.values());
+        List<Object> params = new ArrayList<>(batch.size() * 3);
+        List<String> values = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            values.add(INSERT_ROW);
+            params.add(row.gameId());
+            params.add(row.payload());
+            params.add(row.finishedAt());
+        }
+        String insert = INSERT_FINISHED_GAMES.formatted(String.join(", ", values));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> inserted = new HashSet<>(jdbcTemplate.queryForList(insert, String.class, params.toArray()));
+
+            List<StatChange> stats = new ArrayList<>();
+            List<Timestamp> times = new ArrayList<>();
+            for (Row row : batch) {
+                // партии нет среди вставленных — она записана прошлой попыткой, статистику не трогаем
+                if (!inserted.remove(row.gameId())) {
+                    continue;
+                }
+                for (StatChange change : row.stats()) {
+                    stats.add(change);
+                    times.add(row.finishedAt());
+                }
+            }
+            if (stats.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(UPDATE_STATS, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    StatChange change = stats.get(i);
+                    ps.setInt(1, change.wins());
+                    ps.setInt(2, change.losses());
+                    ps.setInt(3, change.ratingDelta());
+                    ps.setTimestamp(4, times.get(i));
+                    ps.setLong(5, change.telegramId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return stats.size();
+                }
+            });
+        });
+    }
+
+    /**
+     * Запись outbox в строку для вставки (снимок — в JSON, как его пишет и читает FinishedGame); null — не читается
+     */
+    Row parse(String record) {
+        try {
+            Outcome outcome = objectMapper.readValue(record, Outcome.class);
+            Game game = GameRedisSerializer.decode(new ByteReader(outcome.game()));
+            List<StatChange> stats = outcome.stats() == null ? List.of() : outcome.stats();
+            return new Row(outcome.gameId(), objectMapper.writeValueAsString(game),
+                    Timestamp.from(Instant.ofEpochMilli(outcome.finishedAt())), stats);
+        } catch (JsonProcessingException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Запись outbox: id партии, время окончания, снимок в формате GameRedisSerializer, статистика
+     */
+    record Outcome(String gameId, long finishedAt, byte[] game, List<StatChange> stats) {
+    }
+
+    record Row(String gameId, String payload, Timestamp finishedAt, List<StatChange> stats) {
+    }
+}
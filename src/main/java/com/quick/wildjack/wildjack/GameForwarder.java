@@ -0,0 +1,96 @@
+package com.quick.wildjack.wildjack;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Пересылка запросов по партии инстансу-владельцу (GameOwnership): REST-запросы целиком,
+ * ходы из STOMP — на POST /api/games/{id}/action, таймауты — на POST /api/games/{id}/timeout.
+ * Пересланный запрос помечается заголовком FORWARDED_HEADER с подписью SessionTokens.signNodeRequest,
+ * чтобы не гонять его по кругу; клиент такой заголовок подделать не может.
+ * Ход уходит с токеном сессии игрока — владелец проверяет его так же, как токен клиента.
+ */
+@Component
+@RequiredArgsConstructor
+public class GameForwarder {
+
+    static final String FORWARDED_HEADER = "X-Wildjack-Forwarded";
+    static final String SESSION_TOKEN_HEADER = "X-Session-Token";
+
+    private final SessionTokens sessionTokens;
+    private final RestClient restClient = RestClient.create();
+
+    /**
+     * Повторить REST-запрос на владельце и вернуть его ответ как есть
+     */
+    ResponseEntity<byte[]> forward(String ownerUrl, String gameId, HttpServletRequest request) throws IOException {
+        String uri = ownerUrl + request.getRequestURI()
+                + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+        byte[] body = request.getInputStream().readAllBytes();
+        RestClient.RequestBodySpec spec = restClient.method(HttpMethod.valueOf(request.getMethod()))
+                .uri(uri)
+                .header(FORWARDED_HEADER, sessionTokens.signNodeRequest(gameId));
+        copyHeader(request, spec, HttpHeaders.ACCEPT);
+        copyHeader(request, spec, HttpHeaders.CONTENT_TYPE);
+        copyHeader(request, spec, HttpHeaders.AUTHORIZATION);
+        copyHeader(request, spec, "X-Telegram-Id");
+        copyHeader(request, spec, SESSION_TOKEN_HEADER);
+        if (body.length > 0) {
+            spec.body(body);
+        }
+        return spec.exchange((req, res) -> {
+            HttpHeaders headers = new HttpHeaders();
+            if (res.getHeaders().getContentType() != null) {
+                headers.setContentType(res.getHeaders().getContentType());
+            }
+            return new ResponseEntity<>(res.getBody().readAllBytes(), headers, res.getStatusCode());
+        });
+    }
+
+    /**
+     * Ход игрока из STOMP (playerId — из проверенного токена сессии); ошибка владельца
+     * возвращается исключением с его текстом
+     */
+    void forwardAction(String ownerUrl, MoveMessage message) {
+        post(ownerUrl, message.getGameId(), "/action", message, sessionTokens.issue(message.getPlayerId()));
+    }
+
+    void forwardTimeout(String ownerUrl, String gameId) {
+        post(ownerUrl, gameId, "/timeout", null, null);
+    }
+
+    private void post(String ownerUrl, String gameId, String action, Object payload, String sessionToken) {
+        RestClient.RequestBodySpec spec = restClient.post()
+                .uri(ownerUrl + "/api/games/" + gameId + action)
+                .header(FORWARDED_HEADER, sessionTokens.signNodeRequest(gameId));
+        if (sessionToken != null) {
+            spec.header(SESSION_TOKEN_HEADER, sessionToken);
+        }
+        if (payload != null) {
+            spec.contentType(MediaType.APPLICATION_JSON).body(payload);
+        }
+        spec.exchange((req, res) -> {
+            if (res.getStatusCode().isError()) {
+                String error = new String(res.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                throw new RuntimeException(error.isBlank() ? "Owner node returned " + res.getStatusCode() : error);
+            }
+            return null;
+        });
+    }
+
+    private static void copyHeader(HttpServletRequest request, RestClient.RequestBodySpec spec, String name) {
+        String value = request.getHeader(name);
+        if (value != null) {
+            spec.header(name, value);
+        }
+    }
+}
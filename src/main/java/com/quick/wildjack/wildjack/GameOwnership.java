@@ -0,0 +1,166 @@
+package com.quick.wildjack.wildjack;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Владение партиями в кластере (wildjack.ownership.mode=redis): партию держит в памяти и меняет
+ * ровно один инстанс — владелец аренды game:{id}:owner (SET NX PX, значение — адрес инстанса node-url).
+ * Остальные инстансы пересылают ему запросы (GameForwarder). Аренды своих партий продлеваются по таймеру;
+ * потерянная аренда выгружает партию из памяти, а аренду упавшего инстанса после истечения
+ * забирает первый инстанс, к которому придёт запрос по этой партии.
+ * В режиме local (по умолчанию) инстанс один и владеет всеми партиями.
+ */
+@Component
+public class GameOwnership {
+
+    private static final Logger log = LoggerFactory.getLogger(GameOwnership.class);
+
+    // KEYS: аренда, снимок партии; ARGV: адрес инстанса, срок аренды в мс.
+    // Возвращает владельца; nil — партии в Redis нет, аренду не берём
+    private static final RedisScript<String> ACQUIRE = new DefaultRedisScript<>("""
+            local owner = redis.call('GET', KEYS[1])
+            if owner then
+                return owner
+            end
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                return false
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return ARGV[1]
+            """, String.class);
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final long leaseMs;
+    private final String nodeUrl;
+    // партии, аренду которых держит этот инстанс
+    private final Set<String> owned = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<String> lostListener = gameId -> { };
+
+    public GameOwnership(StringRedisTemplate redisTemplate,
+                         @Value("${wildjack.ownership.mode:local}") String mode,
+                         @Value("${wildjack.ownership.lease-ms:15000}") long leaseMs,
+                         @Value("${wildjack.ownership.node-url:}") String nodeUrl) {
+        if (!mode.equals("local") && !mode.equals("redis")) {
+            throw new RuntimeException("Unknown wildjack.ownership.mode: " + mode);
+        }
+        if (mode.equals("redis") && nodeUrl.isBlank()) {
+            throw new RuntimeException("wildjack.ownership.node-url is required in redis mode");
+        }
+        this.redisTemplate = redisTemplate;
+        this.enabled = mode.equals("redis");
+        this.leaseMs = leaseMs;
+        this.nodeUrl = nodeUrl;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Вызывается, когда аренда партии потеряна (истекла и досталась другому инстансу)
+     */
+    void onLost(Consumer<String> listener) {
+        this.lostListener = listener;
+    }
+
+    /**
+     * Адрес инстанса-владельца или null, если партия наша. Свободная аренда забирается, только если партия
+     * есть в Redis: запрос к несуществующей или законченной партии обрабатывается локально ("Game not found")
+     * и не оставляет аренду на партию, которой нет
+     */
+    public String ownerOf(String gameId) {
+        if (!enabled || owned.contains(gameId)) {
+            return null;
+        }
+        String owner = redisTemplate.execute(ACQUIRE, List.of(key(gameId), GameService.redisKey(gameId)),
+                nodeUrl, String.valueOf(leaseMs));
+        if (owner == null) {
+            return null;
+        }
+        if (nodeUrl.equals(owner)) {
+            owned.add(gameId);
+            return null;
+        }
+        return owner;
+    }
+
+    /**
+     * Забрать аренду новой партии: её снимка в Redis ещё нет, id только что сгенерирован.
+     * false — аренду с таким id уже держит другой инстанс
+     */
+    public boolean claim(String gameId) {
+        if (!enabled) {
+            return true;
+        }
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key(gameId), nodeUrl, Duration.ofMillis(leaseMs));
+        if (!Boolean.TRUE.equals(acquired)) {
+            return false;
+        }
+        owned.add(gameId);
+        return true;
+    }
+
+    /**
+     * Отдать аренду (партия закончилась или её нет в Redis)
+     */
+    public void release(String gameId) {
+        if (!enabled || !owned.remove(gameId)) {
+            return;
+        }
+        redisTemplate.execute(RELEASE, List.of(key(gameId)), nodeUrl);
+    }
+
+    @Scheduled(fixedDelayString = "${wildjack.ownership.renew-ms:5000}")
+    public void renewLeases() {
+        if (!enabled) {
+            return;
+        }
+        for (String gameId : owned) {
+            Long renewed;
+            try {
+                renewed = redisTemplate.execute(RENEW, List.of(key(gameId)), nodeUrl, String.valueOf(leaseMs));
+            } catch (RuntimeException e) {
+                // Redis недоступен — попробуем на следующем тике, аренда ещё может быть жива
+                log.warn("ownership-renew-failed gameId={} error={}", gameId, e.getMessage());
+                continue;
+            }
+            if (renewed == null || renewed == 0) {
+                owned.remove(gameId);
+                log.warn("ownership-lost gameId={}", gameId);
+                lostListener.accept(gameId);
+            }
+        }
+    }
+
+    private static String key(String gameId) {
+        return "game:" + gameId + ":owner";
+    }
+}
@@ -0,0 +1,254 @@
+package com.quick.wildjack.wildjack;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Рассылка состояния игры подписчикам и подсказок игроку, чей сейчас ход
+ * (если ходит бот — событие BotTurnEvent для BotPlayer).
+ * Пока партия идёт, в /topic/game/{id}/delta уходят только изменения относительно прошлой рассылки;
+ * полное публичное состояние (GameView, без рук) в /topic/game/{id} — при создании, входе игроков и старте.
+ * Рука, подсказки и ошибки — личные: /user/queue/hand, /user/queue/hints, /user/queue/errors
+ * (пользователь сессии — PlayerPrincipal из токена sessionToken при CONNECT).
+ * Клиентам с wire-format: binary всё уходит в формате WireCodec: личное — в те же /user/queue/...,
+ * общее — в /topic/game/{id}/bin и /topic/game/{id}/delta/bin. JSON-версия общего состояния
+ * не кодируется, если все живые игроки партии подключены в бинарном формате.
+ * publish вызывается внутри полосы игры (GameService.withGameLock) на инстансе, где партия изменилась;
+ * рассылку своим подписчикам каждый инстанс делает в deliver, получив обновление через GameFanout.
+ */
+@Component
+@RequiredArgsConstructor
+public class GamePublisher {
+
+    private final GameService gameService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SimpUserRegistry userRegistry;
+    private final GameFanout fanout;
+    // что последним ушло подписчикам по каждой партии — база для следующей дельты
+    private final Map<String, PublishedState> published = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void startFanout() {
+        fanout.start(this::deliver);
+    }
+
+    public void publish(Game game) {
+        LegalMoves hints = null;
+        Player current = game.getStatus() == GameStatus.STARTED
+                ? game.getPlayers().get(game.getCurrentPlayerIndex())
+                : null;
+        if (current != null && !current.isBot()) {
+            // подсказки считаются здесь: состояние обмена карт есть только на этом инстансе
+            hints = gameService.getLegalMoves(game.getId(), current.getId());
+        }
+        fanout.broadcast(game, hints);
+        if (current != null && current.isBot()) {
+            // бот ходит там, где изменилась партия — событие не уходит на другие инстансы
+            eventPublisher.publishEvent(new BotTurnEvent(game.getId(), current.getId()));
+        }
+    }
+
+    /**
+     * Рассылка подписчикам этого инстанса
+     */
+    void deliver(Game game, LegalMoves hints) {
+        PublishedState previous = published.get(game.getId());
+        if (previous != null && (previous.version > game.getVersion()
+                || previous.version == game.getVersion() && previous.status == game.getStatus())) {
+            // устаревшее обновление пришло позже нового или то же пришло повторно (эхо рассылки, повтор)
+            return;
+        }
+        PublishedState current = PublishedState.of(game);
+        int humans = 0;
+        int binaryClients = 0;
+        for (Player player : game.getPlayers()) {
+            if (!player.isBot()) {
+                humans++;
+                binaryClients += binaryWire(player.getId()) ? 1 : 0;
+            }
+        }
+        boolean json = binaryClients < humans;
+        boolean binary = binaryClients > 0;
+
+        String topic = "/topic/game/" + game.getId();
+        boolean delta = previous != null && previous.status == GameStatus.STARTED;
+        if (delta) {
+            GameDelta gameDelta = buildDelta(game, previous, current);
+            if (json) {
+                messagingTemplate.convertAndSend(topic + "/delta", gameDelta);
+            }
+            if (binary) {
+                messagingTemplate.convertAndSend(topic + "/delta/bin", WireCodec.encodeDelta(gameDelta, game.getPlayers()));
+            }
+        } else {
+            GameView view = GameView.of(game);
+            if (json) {
+                messagingTemplate.convertAndSend(topic, view);
+            }
+            if (binary) {
+                messagingTemplate.convertAndSend(topic + "/bin", WireCodec.encodeView(view));
+            }
+        }
+        pushHands(game, delta ? previous : null, current);
+        if (game.getStatus() == GameStatus.FINISHED) {
+            published.remove(game.getId());
+        } else {
+            published.put(game.getId(), current);
+        }
+        if (hints != null) {
+            sendToUser(hints.getPlayerId(), "/queue/hints", hints, WireCodec::encodeHints);
+        }
+    }
+
+    public void publishError(String playerId, String message) {
+        if (playerId == null) {
+            return;
+        }
+        sendToUser(playerId, "/queue/errors", message, WireCodec::encodeError);
+    }
+
+    /**
+     * Личное сообщение в формате, который клиент выбрал при CONNECT
+     */
+    private <T> void sendToUser(String playerId, String destination, T payload, Function<T, byte[]> encoder) {
+        Object body = binaryWire(playerId) ? encoder.apply(payload) : payload;
+        messagingTemplate.convertAndSendToUser(playerId, destination, body);
+    }
+
+    private boolean binaryWire(String playerId) {
+        SimpUser user = userRegistry.getUser(playerId);
+        return user != null && user.getPrincipal() instanceof PlayerPrincipal principal && principal.binaryWire();
+    }
+
+    /**
+     * Руки — каждому игроку свою; при дельте только тем, у кого рука изменилась
+     */
+    private void pushHands(Game game, PublishedState previous, PublishedState current) {
+        for (Player player : game.getPlayers()) {
+            if (player.isBot()) {
+                continue;
+            }
+            if (previous != null && Arrays.equals(previous.hands.get(player.getId()), current.hands.get(player.getId()))) {
+                continue;
+            }
+            HandUpdate update = new HandUpdate();
+            update.setGameId(game.getId());
+            update.setVersion(game.getVersion());
+            update.setHand(player.getHand());
+            sendToUser(player.getId(), "/queue/hand", update, WireCodec::encodeHand);
+        }
+    }
+
+    private GameDelta buildDelta(Game game, PublishedState previous, PublishedState current) {
+        GameDelta delta = new GameDelta();
+        delta.setGameId(game.getId());
+        delta.setBaseVersion(previous.version);
+        delta.setVersion(current.version);
+        delta.setStatus(game.getStatus());
+        delta.setResult(game.getResult());
+        delta.setWinnerKey(game.getWinnerKey());
+        delta.setCurrentPlayerIndex(game.getCurrentPlayerIndex());
+        delta.setTurnDeadlineEpochMs(game.getTurnDeadlineEpochMs());
+        delta.setDeckSize(game.getDeckSize());
+        delta.setSequencesByKey(game.getSequencesByKey());
+        delta.setLastMove(game.getLastMove());
+
+        List<CellChange> cells = new ArrayList<>();
+        Cell[][] board = game.getBoard();
+        for (int i = 0; i < current.cells.length; i++) {
+            if (current.cells[i] == previous.cells[i]) {
+                continue;
+            }
+            Cell cell = board[i / BitBoard.SIZE][i % BitBoard.SIZE];
+            CellChange change = new CellChange();
+            change.setX(i % BitBoard.SIZE);
+            change.setY(i / BitBoard.SIZE);
+            change.setOwnerId(cell.getOwnerId());
+            change.setTeam(cell.getTeam());
+            change.setSequence(cell.isSequence());
+            cells.add(change);
+        }
+        delta.setCells(cells);
+
+        Map<String, Integer> handSizes = new HashMap<>();
+        for (Player player : game.getPlayers()) {
+            byte[] hand = current.hands.get(player.getId());
+            if (!Arrays.equals(previous.hands.get(player.getId()), hand)) {
+                handSizes.put(player.getId(), hand.length);
+            }
+        }
+        delta.setHandSizes(handSizes);
+        return delta;
+    }
+
+    /**
+     * Забыть слепки партий, по которым ничего не рассылалось дольше idleMs: партия выгружена,
+     * брошена или закончилась на инстансе, откуда обновление сюда не дошло. Если партия оживёт,
+     * подписчики получат полное состояние вместо дельты
+     */
+    public void evictIdle(long idleMs) {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        published.values().removeIf(state -> state.publishedAt < cutoff);
+    }
+
+    /**
+     * Сжатый слепок разосланного состояния: по байту на клетку (номер игрока-владельца + 1,
+     * старший бит — секвенция) и id карт на руках
+     */
+    private static final class PublishedState {
+        final long version;
+        final GameStatus status;
+        final long publishedAt = System.currentTimeMillis();
+        final byte[] cells = new byte[BitBoard.CELLS];
+        final Map<String, byte[]> hands = new HashMap<>();
+
+        private PublishedState(long version, GameStatus status) {
+            this.version = version;
+            this.status = status;
+        }
+
+        static PublishedState of(Game game) {
+            PublishedState state = new PublishedState(game.getVersion(), game.getStatus());
+            List<Player> players = game.getPlayers();
+            Cell[][] board = game.getBoard();
+            for (int y = 0; y < BitBoard.SIZE; y++) {
+                for (int x = 0; x < BitBoard.SIZE; x++) {
+                    Cell cell = board[y][x];
+                    int owner = 0;
+                    if (cell.getOwnerId() != null) {
+                        for (int p = 0; p < players.size(); p++) {
+                            if (cell.getOwnerId().equals(players.get(p).getId())) {
+                                owner = p + 1;
+                                break;
+                            }
+                        }
+                    }
+                    state.cells[y * BitBoard.SIZE + x] = (byte) (owner | (cell.isSequence() ? 0x80 : 0));
+                }
+            }
+            for (Player player : players) {
+                List<Card> hand = player.getHand();
+                byte[] ids = new byte[hand == null ? 0 : hand.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = hand.get(i).getId();
+                }
+                state.hands.put(player.getId(), ids);
+            }
+            return state;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.quick.wildjack.wildjack;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Уборка памяти: закрывает брошенные лобби, выгружает давно не читанные партии
+ * и забывает слепки рассылки по ним — чтобы память инстанса не росла неделями.
+ * Закрываются только лобби из памяти этого инстанса; лобби, которые лежат лишь в Redis
+ * (выгружены или владелец упал), не закрываются, а истекают по TTL ключей (wildjack.redis.game-ttl-ms)
+ */
+@Component
+@RequiredArgsConstructor
+public class GameReaper {
+
+    private final GameService gameService;
+    private final GamePublisher gamePublisher;
+    private final GameCache gameCache;
+
+    @Scheduled(fixedDelayString = "${wildjack.cache.sweep-ms:60000}")
+    public void sweep() {
+        for (Game game : gameService.reapAbandonedGames()) {
+            gamePublisher.publish(game);
+        }
+        gameService.evictIdleGames();
+        gamePublisher.evictIdle(Math.max(gameCache.getIdleMs(), gameCache.getLobbyIdleMs()));
+    }
+}
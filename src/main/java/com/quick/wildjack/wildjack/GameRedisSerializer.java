@@ -0,0 +1,276 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Бинарный формат снимка Game в Redis: владельцы клеток — номер игрока в партии, карты — id,
+ * колода — массив id. Первые два байта — MAGIC и версия формата (версия 1 — без telegramId игроков, читается).
+ * Байт флагов партии: 1 — командная, 2 — обмен в этом ходу уже был (прежде там был только признак командной,
+ * поэтому старые снимки читаются без изменений).
+ * Записи без MAGIC (старый JSON) читаются через Jackson, так что переход не требует миграции ключей;
+ * при json = true пишется JSON — для отката на версию без этого формата.
+ */
+public class GameRedisSerializer implements RedisSerializer<Game> {
+
+    // JSON-снимок начинается с '{', этот байт там встретиться не может
+    static final int MAGIC = 0xC7;
+    static final int FORMAT_VERSION = 2;
+
+    private static final int NONE = 0xFF;
+    // владелец не из списка игроков — дальше идёт его id строкой
+    private static final int FOREIGN_OWNER = 0x3F;
+    private static final int OWNER_MASK = 0x3F;
+    private static final int CORNER = 0x40;
+    private static final int SEQUENCE = 0x80;
+    private static final int TEAM_GAME = 1;
+    private static final int EXCHANGE_USED = 2;
+
+    private final ObjectMapper objectMapper;
+    private final boolean json;
+
+    public GameRedisSerializer(ObjectMapper objectMapper, boolean json) {
+        this.objectMapper = objectMapper;
+        this.json = json;
+    }
+
+    @Override
+    public byte[] serialize(Game game) throws SerializationException {
+        if (game == null) {
+            return new byte[0];
+        }
+        if (json) {
+            try {
+                return objectMapper.writeValueAsBytes(game);
+            } catch (IOException e) {
+                throw new SerializationException("Cannot write game " + game.getId() + " as JSON", e);
+            }
+        }
+        try {
+            return encode(game);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot encode game " + game.getId(), e);
+        }
+    }
+
+    @Override
+    public Game deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            try {
+                return objectMapper.readValue(bytes, Game.class);
+            } catch (IOException e) {
+                throw new SerializationException("Cannot read JSON game snapshot", e);
+            }
+        }
+        try {
+            return decode(new ByteReader(bytes));
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot decode game snapshot", e);
+        }
+    }
+
+    static byte[] encode(Game game) {
+        ByteWriter out = new ByteWriter(512);
+        out.put(MAGIC);
+        out.put(FORMAT_VERSION);
+        out.putString(game.getId());
+        out.putLong(game.getVersion());
+        out.putLong(game.getEventSeq());
+        out.put(game.getStatus() == null ? NONE : game.getStatus().ordinal());
+        out.put(game.getMaxPlayers());
+        out.put((game.isTeamGame() ? TEAM_GAME : 0) | (game.isExchangeUsedThisTurn() ? EXCHANGE_USED : 0));
+        out.put(game.getCurrentPlayerIndex());
+        out.putLong(game.getTurnDeadlineEpochMs());
+        out.put(game.getResult() == null ? NONE : game.getResult().ordinal());
+        out.putString(game.getWinnerKey());
+
+        List<Player> players = game.getPlayers() == null ? List.of() : game.getPlayers();
+        Map<String, Integer> indexes = new HashMap<>();
+        out.put(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            indexes.put(player.getId(), i);
+            out.putString(player.getId());
+            out.putString(player.getName());
+            out.putString(player.getColor());
+            out.put(player.getTeam());
+            out.put(player.isBot() ? 1 : 0);
+            if (player.getTelegramId() == null) {
+                out.put(0);
+            } else {
+                out.put(1);
+                out.putLong(player.getTelegramId());
+            }
+            List<Card> hand = player.getHand();
+            if (hand == null) {
+                out.put(NONE);
+            } else {
+                out.put(hand.size());
+                for (Card card : hand) {
+                    out.put(card.getId());
+                }
+            }
+        }
+
+        // клетка: id карты, владелец с флагами угла и секвенции, команда
+        Cell[][] board = game.getBoard();
+        out.put(board == null ? 0 : board.length);
+        if (board != null) {
+            for (Cell[] row : board) {
+                out.put(row.length);
+                for (Cell cell : row) {
+                    Integer owner = cell.getOwnerId() == null ? null : indexes.get(cell.getOwnerId());
+                    int ownerCode = cell.getOwnerId() == null ? 0 : owner == null ? FOREIGN_OWNER : owner + 1;
+                    out.put(cell.getCard() == null ? NONE : cell.getCard().getId());
+                    out.put(ownerCode | (cell.isCorner() ? CORNER : 0) | (cell.isSequence() ? SEQUENCE : 0));
+                    if (ownerCode == FOREIGN_OWNER) {
+                        out.putString(cell.getOwnerId());
+                    }
+                    out.put(cell.getTeam());
+                }
+            }
+        }
+
+        if (game.getDeck() == null) {
+            out.put(NONE);
+        } else {
+            byte[] deck = game.getDeck().toBytes();
+            out.put(deck.length);
+            out.putBytes(deck);
+        }
+
+        Map<String, Integer> sequences = game.getSequencesByKey();
+        if (sequences == null) {
+            out.put(NONE);
+        } else {
+            out.put(sequences.size());
+            for (Map.Entry<String, Integer> entry : sequences.entrySet()) {
+                out.putString(entry.getKey());
+                out.put(entry.getValue());
+            }
+        }
+
+        LastMove lastMove = game.getLastMove();
+        if (lastMove == null) {
+            out.put(0);
+        } else {
+            out.put(1);
+            out.put(lastMove.getX());
+            out.put(lastMove.getY());
+            out.putString(lastMove.getPlayerId());
+            out.put(lastMove.getCard() == null ? NONE : lastMove.getCard().getId());
+            out.put((lastMove.isJackRemove() ? 1 : 0) | (lastMove.isJackWild() ? 2 : 0));
+        }
+        return out.toBytes();
+    }
+
+    static Game decode(ByteReader in) {
+        in.getUnsigned();
+        int formatVersion = in.getUnsigned();
+        if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported game format version: " + formatVersion);
+        }
+        Game game = new Game();
+        game.setId(in.getString());
+        game.setVersion(in.getLong());
+        game.setEventSeq(in.getLong());
+        int status = in.getUnsigned();
+        game.setStatus(status == NONE ? null : GameStatus.values()[status]);
+        game.setMaxPlayers(in.getUnsigned());
+        int gameFlags = in.getUnsigned();
+        game.setTeamGame((gameFlags & TEAM_GAME) != 0);
+        game.setExchangeUsedThisTurn((gameFlags & EXCHANGE_USED) != 0);
+        game.setCurrentPlayerIndex(in.getUnsigned());
+        game.setTurnDeadlineEpochMs(in.getLong());
+        int result = in.getUnsigned();
+        game.setResult(result == NONE ? null : GameResult.values()[result]);
+        game.setWinnerKey(in.getString());
+
+        int playerCount = in.getUnsigned();
+        List<Player> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            Player player = new Player();
+            player.setId(in.getString());
+            player.setName(in.getString());
+            player.setColor(in.getString());
+            player.setTeam(in.get());
+            player.setBot(in.get() != 0);
+            if (formatVersion >= 2 && in.get() != 0) {
+                player.setTelegramId(in.getLong());
+            }
+            int handSize = in.getUnsigned();
+            if (handSize != NONE) {
+                List<Card> hand = new ArrayList<>(handSize);
+                for (int c = 0; c < handSize; c++) {
+                    hand.add(Card.of(in.getUnsigned()));
+                }
+                player.setHand(hand);
+            }
+            players.add(player);
+        }
+        game.setPlayers(players);
+
+        int rows = in.getUnsigned();
+        if (rows > 0) {
+            Cell[][] board = new Cell[rows][];
+            for (int y = 0; y < rows; y++) {
+                board[y] = new Cell[in.getUnsigned()];
+                for (int x = 0; x < board[y].length; x++) {
+                    Cell cell = new Cell();
+                    int card = in.getUnsigned();
+                    cell.setCard(card == NONE ? null : Card.of(card));
+                    int flags = in.getUnsigned();
+                    int owner = flags & OWNER_MASK;
+                    if (owner == FOREIGN_OWNER) {
+                        cell.setOwnerId(in.getString());
+                    } else if (owner > 0) {
+                        cell.setOwnerId(players.get(owner - 1).getId());
+                    }
+                    cell.setCorner((flags & CORNER) != 0);
+                    cell.setSequence((flags & SEQUENCE) != 0);
+                    cell.setTeam(in.get());
+                    board[y][x] = cell;
+                }
+            }
+            game.setBoard(board);
+        }
+
+        int deckSize = in.getUnsigned();
+        if (deckSize != NONE) {
+            game.setDeck(Deck.fromBytes(in.getBytes(deckSize)));
+        }
+
+        int sequenceCount = in.getUnsigned();
+        if (sequenceCount != NONE) {
+            Map<String, Integer> sequences = new HashMap<>();
+            for (int i = 0; i < sequenceCount; i++) {
+                sequences.put(in.getString(), in.getUnsigned());
+            }
+            game.setSequencesByKey(sequences);
+        }
+
+        if (in.get() != 0) {
+            LastMove lastMove = new LastMove();
+            lastMove.setX(in.getUnsigned());
+            lastMove.setY(in.getUnsigned());
+            lastMove.setPlayerId(in.getString());
+            int card = in.getUnsigned();
+            lastMove.setCard(card == NONE ? null : Card.of(card));
+            int flags = in.getUnsigned();
+            lastMove.setJackRemove((flags & 1) != 0);
+            lastMove.setJackWild((flags & 2) != 0);
+            game.setLastMove(lastMove);
+        }
+        return game;
+    }
+}
@@ -0,0 +1,74 @@
+package com.quick.wildjack.wildjack;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+/**
+ * Запросы /api/games/{gameId}/... к партии, которой владеет другой инстанс, пересылаются ему целиком
+ */
+@Configuration
+@RequiredArgsConstructor
+public class GameRoutingConfig implements WebMvcConfigurer {
+
+    private final GameOwnership ownership;
+    private final GameForwarder forwarder;
+    private final SessionTokens sessionTokens;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(forwardingInterceptor()).addPathPatterns("/api/games/**");
+    }
+
+    HandlerInterceptor forwardingInterceptor() {
+        return new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                    throws Exception {
+                if (!ownership.isEnabled()) {
+                    return true;
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, String> variables =
+                        (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+                String gameId = variables == null ? null : variables.get("gameId");
+                if (gameId == null) {
+                    return true;
+                }
+                String signature = request.getHeader(GameForwarder.FORWARDED_HEADER);
+                if (signature != null && !sessionTokens.isNodeRequest(gameId, signature)) {
+                    // заголовок пересылки ставят только инстансы — без верной подписи это подделка
+                    response.sendError(HttpStatus.FORBIDDEN.value(), "Invalid node signature");
+                    return false;
+                }
+                String owner = ownership.ownerOf(gameId);
+                if (owner == null) {
+                    return true;
+                }
+                if (signature != null) {
+                    // владелец сменился, пока запрос шёл к нему — клиент повторит
+                    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Game owner changed, retry");
+                    return false;
+                }
+                ResponseEntity<byte[]> forwarded = forwarder.forward(owner, gameId, request);
+                response.setStatus(forwarded.getStatusCode().value());
+                if (forwarded.getHeaders().getContentType() != null) {
+                    response.setContentType(forwarded.getHeaders().getContentType().toString());
+                }
+                if (forwarded.getBody() != null) {
+                    response.getOutputStream().write(forwarded.getBody());
+                }
+                return false;
+            }
+        };
+    }
+}
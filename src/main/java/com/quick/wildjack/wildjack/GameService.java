@@ -1,35 +1,98 @@
 package com.quick.wildjack.wildjack;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 @Service
 public class GameService {
 
     private static final String GAME_ID_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
     private static final int GAME_ID_LENGTH = 5;
+    private static final String BOT_NAME = "Bot";
     private static final Logger log = LoggerFactory.getLogger(GameService.class);
-    private final Map<String, Game> games = new HashMap<>();
-    private final Map<String, Boolean> exchangeUsedByGame = new HashMap<>();
+    // число полос блокировок (степень двойки); все изменения одной игры идут под её полосой
+    private static final int LOCK_STRIPES = 256;
+    // сколько раз перечитать партию и повторить действие, если её версию в Redis успели сменить
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    // метка законченной партии в game:{id}:version — запоздавшая запись не воскресит её
+    static final String FINISHED_VERSION = "finished";
+    private static final long FINISHED_VERSION_TTL_SECONDS = 24 * 60 * 60;
+    // срок жизни ключей партии в Redis, если GameEventLog (и его wildjack.redis.game-ttl-ms) не подключён
+    private static final long DEFAULT_GAME_TTL_MS = 48L * 60 * 60 * 1000;
+
+    /**
+     * Снимок пишется, только если версия в Redis та, от которой шло изменение (или её ещё нет);
+     * заодно очищается журнал событий, который снимок покрывает. Каждая запись продлевает TTL ключей —
+     * брошенная партия сама исчезнет из Redis.
+     * KEYS: снимок, версия, журнал; ARGV: ожидаемая версия, новая версия, снимок, TTL в мс
+     */
+    static final RedisScript<Long> SAVE_SNAPSHOT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[2])
+            if current and current ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[3], 'PX', ARGV[4])
+            redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[4])
+            redis.call('DEL', KEYS[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * Удаление законченной партии с той же проверкой версии; версия заменяется меткой FINISHED_VERSION,
+     * итоги партии (если есть) кладутся в outbox GameFinalizer — снятие и итоги происходят вместе или никак.
+     * KEYS: снимок, версия, журнал, outbox; ARGV: ожидаемая версия, метка, TTL метки в секундах, итоги
+     */
+    static final RedisScript<Long> DELETE_SNAPSHOT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[2])
+            if current and current ~= ARGV[1] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1], KEYS[3])
+            redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3])
+            if ARGV[4] ~= '' then
+                redis.call('RPUSH', KEYS[4], ARGV[4])
+            end
+            return 1
+            """, Long.class);
+    // партии в памяти; ограничен по размеру и простою, выгруженная партия читается из Redis заново
+    private final GameCache games;
+    private final ReentrantLock[] gameLocks = createGameLocks();
     private final RedisTemplate<String, Game> gameRedisTemplate;
-    private final FinishedGameRepository finishedGameRepository;
-    private final UserProfileRepository userProfileRepository;
-    private final ObjectMapper objectMapper;
+    // итоги законченных партий пишутся в Postgres в фоне
+    private final GameFinalizer finalizer;
+    private final GameEventLog eventLog;
+    // дедлайны ходов активных партий — таймер смотрит только на истёкшие
+    private final TurnDeadlines turnDeadlines;
+    private final GameOwnership ownership;
 
     public GameService(RedisTemplate<String, Game> gameRedisTemplate,
-                       FinishedGameRepository finishedGameRepository,
-                       UserProfileRepository userProfileRepository,
-                       ObjectMapper objectMapper) {
+                       GameFinalizer finalizer,
+                       GameEventLog eventLog,
+                       TurnDeadlines turnDeadlines,
+                       GameOwnership ownership,
+                       GameCache games) {
         this.gameRedisTemplate = gameRedisTemplate;
-        this.finishedGameRepository = finishedGameRepository;
-        this.userProfileRepository = userProfileRepository;
-        this.objectMapper = objectMapper;
+        this.finalizer = finalizer;
+        this.eventLog = eventLog;
+        this.turnDeadlines = turnDeadlines != null ? turnDeadlines : new LocalTurnDeadlines();
+        this.ownership = ownership;
+        this.games = games != null ? games : new GameCache(10_000, 30 * 60_000, 30 * 60_000);
+        if (ownership != null) {
+            ownership.onLost(this::evict);
+        }
     }
 
     /**
@@ -37,10 +100,19 @@ public class GameService {
      */
     private static final int BOARD_SIZE = 10;
     private static final long TURN_MS = 60_000;
-    private static final int SEQUENCE_LENGTH = 5;
     private static final List<Card> BOARD_TEMPLATE = buildBoardTemplate();
+    // клетка -> id карты (-1 для углов) и id карты -> две её клетки на доске
+    static final byte[] CELL_CARDS = buildCellCards();
+    private static final int[][] CARD_CELLS = buildCardCells();
 
     public Game createGame(List<String> playerNames) {
+        return createGame(playerNames, null);
+    }
+
+    /**
+     * Создание игры пользователем Telegram: его id получает первый игрок, по нему считается статистика
+     */
+    public Game createGame(List<String> playerNames, Long telegramId) {
         if (playerNames == null || playerNames.isEmpty()) {
             throw new RuntimeException("At least 1 player required");
         }
@@ -48,15 +120,25 @@ public class GameService {
             throw new RuntimeException("Players must be between 1 and 6");
         }
 
+        String gameId = generateGameId();
+        // новая партия — аренда свободна и достаётся этому инстансу; id, занятый другим инстансом, генерируем заново
+        while (ownership != null && !ownership.claim(gameId)) {
+            gameId = generateGameId();
+        }
+        String newGameId = gameId;
+        return withGameLock(newGameId, () -> doCreateGame(newGameId, playerNames, telegramId));
+    }
+
+    private Game doCreateGame(String gameId, List<String> playerNames, Long telegramId) {
         Game game = new Game();
-        game.setId(generateGameId());
+        game.setId(gameId);
         game.setStatus(GameStatus.WAITING);
         game.setMaxPlayers(Math.max(2, playerNames.size()));
         game.setTeamGame(true);
         game.setResult(null);
         game.setWinnerKey(null);
         game.setSequencesByKey(new HashMap<>());
-        exchangeUsedByGame.put(game.getId(), false);
+        game.setExchangeUsedThisTurn(false);
 
         // игроки (пока без карт — раздадим при startGame)
         String[] colors = {"RED", "BLUE", "GREEN"};
@@ -69,6 +151,9 @@ public class GameService {
             int teamIndex = i % teamCount;
             p.setColor(colors[teamIndex % colors.length]);
             p.setHand(new ArrayList<>());
+            if (i == 0) {
+                p.setTelegramId(telegramId);
+            }
             players.add(p);
         }
         game.setPlayers(players);
@@ -84,45 +169,77 @@ public class GameService {
                 } else {
                     cell.setCard(it.next());
                 }
-                cell.setOwner(null);
+                cell.setOwnerId(null);
+                cell.setTeam(-1);
                 cell.setCorner(isCornerCell(i, j));
                 board[i][j] = cell;
             }
         }
         game.setBoard(board);
+        game.setBitBoard(new BitBoard(CELL_CARDS));
 
         // колода (остаток)
-        List<Card> deck = new ArrayList<>(generateDeck());
-        shuffleDeck(deck);
-        game.setDeck(deck);
+        game.setDeck(Deck.shuffled(ThreadLocalRandom.current()));
 
         // ход начнётся только при STARTED
         game.setCurrentPlayerIndex(0);
         game.setTurnDeadlineEpochMs(0);
-        exchangeUsedByGame.put(game.getId(), false);
-
-        saveActiveGame(game);
+        game.setExchangeUsedThisTurn(false);
 
         // если игроков уже 2+ и ты хочешь стартовать сразу:
         if (game.getPlayers().size() >= 2 && game.getPlayers().size() == game.getMaxPlayers()) {
-            startGame(game);
+            startGame(game, System.currentTimeMillis());
         }
 
+        game.setVersion(game.getVersion() + 1);
+        saveActiveGame(game);
         return game;
     }
 
 
     public Game joinGame(String gameId, String playerName) {
+        return joinGame(gameId, playerName, null);
+    }
+
+    /**
+     * Вход в лобби; telegramId — пользователь Telegram (null для гостя)
+     */
+    public Game joinGame(String gameId, String playerName, Long telegramId) {
+        return withGameLock(gameId, () -> retryOnConflict(gameId, () -> doJoinGame(gameId, playerName, telegramId)));
+    }
+
+    private Game doJoinGame(String gameId, String playerName, Long telegramId) {
         Game game = getGame(gameId);
         if (game == null) throw new RuntimeException("Game not found");
 
-        Optional<Player> existingPlayer = game.getPlayers().stream()
-                .filter(p -> p.getName().equalsIgnoreCase(playerName))
-                .findFirst();
-        if (existingPlayer.isPresent()) {
-            return game;
+        // имена видны всем в рассылке партии — вернуться на своё место можно только через rejoin с токеном сессии
+        if (isNameTaken(game, playerName)) {
+            throw new RuntimeException("Player name already taken");
+        }
+
+        if (game.getStatus() != GameStatus.WAITING) {
+            throw new RuntimeException("Game already started");
+        }
+
+        if (game.getPlayers().size() >= game.getMaxPlayers()) {
+            throw new RuntimeException("Lobby is full");
         }
 
+        addPlayer(game, playerName, false, telegramId);
+        return game;
+    }
+
+    /**
+     * Добавить встроенного бота в лобби (например, в игру на одного, которая иначе ждёт вечно)
+     */
+    public Game addBot(String gameId) {
+        return withGameLock(gameId, () -> retryOnConflict(gameId, () -> doAddBot(gameId)));
+    }
+
+    private Game doAddBot(String gameId) {
+        Game game = getGame(gameId);
+        if (game == null) throw new RuntimeException("Game not found");
+
         if (game.getStatus() != GameStatus.WAITING) {
             throw new RuntimeException("Game already started");
         }
@@ -131,9 +248,24 @@ public class GameService {
             throw new RuntimeException("Lobby is full");
         }
 
+        String name = BOT_NAME;
+        for (int n = 2; isNameTaken(game, name); n++) {
+            name = BOT_NAME + " " + n;
+        }
+        addPlayer(game, name, true, null);
+        return game;
+    }
+
+    private boolean isNameTaken(Game game, String name) {
+        return game.getPlayers().stream().anyMatch(p -> p.getName().equalsIgnoreCase(name));
+    }
+
+    private void addPlayer(Game game, String playerName, boolean bot, Long telegramId) {
         Player p = new Player();
         p.setId(UUID.randomUUID().toString());
         p.setName(playerName);
+        p.setBot(bot);
+        p.setTelegramId(telegramId);
         p.setHand(new ArrayList<>());
 
         // цвет по команде
@@ -145,34 +277,51 @@ public class GameService {
 
         // если набрали — стартуем игру
         if (game.getPlayers().size() == game.getMaxPlayers()) {
-            startGame(game);
+            startGame(game, System.currentTimeMillis());
         }
 
+        game.setVersion(game.getVersion() + 1);
         saveActiveGame(game);
-        return game;
     }
 
-    public JoinGameResponse rejoinGame(String gameId, String sessionToken) {
+    /**
+     * Полное состояние партии — для клиента, который пропустил дельту (разрыв в версиях)
+     */
+    public Game getGameState(String gameId) {
+        return withGameLock(gameId, () -> {
+            Game game = getGame(gameId);
+            if (game == null) throw new RuntimeException("Game not found");
+            return game;
+        });
+    }
+
+    /**
+     * Вернуться в партию; playerId — из проверенного токена сессии (SessionTokens)
+     */
+    public Game rejoinGame(String gameId, String playerId) {
+        return withGameLock(gameId, () -> doRejoinGame(gameId, playerId));
+    }
+
+    private Game doRejoinGame(String gameId, String playerId) {
         Game game = getGame(gameId);
         if (game == null) throw new RuntimeException("Game not found");
-        if (sessionToken == null || sessionToken.isBlank()) {
-            throw new RuntimeException("Session token is required");
-        }
 
-        Player player = game.getPlayers().stream()
-                .filter(p -> sessionToken.equals(p.getId()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Session not found"));
-
-        return new JoinGameResponse(game, player.getId());
+        boolean inGame = game.getPlayers().stream().anyMatch(p -> p.getId().equals(playerId));
+        if (!inGame) {
+            throw new RuntimeException("Session not found");
+        }
+        return game;
     }
 
-    private void startGame(Game game) {
+    /**
+     * Старт партии; сохраняет вызывающий (одна запись в Redis на join)
+     */
+    private void startGame(Game game, long now) {
         game.setStatus(GameStatus.STARTED);
         game.setCurrentPlayerIndex(0);
+        assignTeams(game);
 
-        // раздать карты всем
-        shuffleDeck(game.getDeck());
+        // раздать карты всем (колода перемешана при создании игры)
         int handSize = getHandSize(game.getPlayers().size());
         for (Player pl : game.getPlayers()) {
             drawCards(pl, game.getDeck(), handSize);
@@ -180,10 +329,10 @@ public class GameService {
         }
 
         // установить дедлайн
-        game.setTurnDeadlineEpochMs(System.currentTimeMillis() + TURN_MS);
-        exchangeUsedByGame.put(game.getId(), false);
+        game.setTurnDeadlineEpochMs(now + TURN_MS);
+        turnDeadlines.schedule(game.getId(), game.getTurnDeadlineEpochMs());
+        game.setExchangeUsedThisTurn(false);
         game.getSequencesByKey().clear();
-        saveActiveGame(game);
     }
 
 
@@ -192,16 +341,45 @@ public class GameService {
      * Игрок делает ход
      */
     public Game makeMove(String gameId, String playerId, Card card, Integer cardIndex, int x, int y) {
+        GameEvent event = GameEvent.move(playerId, card, cardIndex, x, y, System.currentTimeMillis());
+        return withGameLock(gameId, () -> retryOnConflict(gameId, () -> doAction(gameId, event)));
+    }
+
+    /**
+     * Действие игрока (или таймера): применить к партии и сохранить —
+     * снимком целиком или, в режиме событий, одним событием в журнал
+     */
+    private Game doAction(String gameId, GameEvent event) {
         Game game = getGame(gameId);
         if (game == null) throw new RuntimeException("Game not found");
+        applyEvent(game, event);
+        persist(game, event);
+        return game;
+    }
+
+    /**
+     * Применение события без сохранения: общий путь для живых действий и восстановления из журнала.
+     * Время берётся из события, поэтому дедлайны при повторе те же.
+     */
+    private void applyEvent(Game game, GameEvent event) {
+        switch (event.getType()) {
+            case MOVE -> applyMove(game, event.getPlayerId(), event.getCard(), event.getCardIndex(),
+                    event.getX(), event.getY(), event.getAtEpochMs());
+            case EXCHANGE -> applyExchange(game, event.getPlayerId(), event.getCard(), event.getAtEpochMs());
+            case SKIP -> applySkip(game, event.getPlayerId(), event.getAtEpochMs());
+            case TIMEOUT -> handleTimeoutIfNeeded(game, event.getAtEpochMs());
+        }
+    }
+
+    private void applyMove(Game game, String playerId, Card card, Integer cardIndex, int x, int y, long now) {
         if (game.getStatus() != GameStatus.STARTED) throw new RuntimeException("Game not started yet");
 
-        if (handleTimeoutIfNeeded(game)) {
-            return game;
+        if (handleTimeoutIfNeeded(game, now)) {
+            return;
         }
 
-        if (checkAndSkipIfStuck(game)) {
-            return game;
+        if (checkAndSkipIfStuck(game, now)) {
+            return;
         }
 
         if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
@@ -221,6 +399,9 @@ public class GameService {
             throw new RuntimeException("Corner cell is not playable");
         }
 
+        // карта проверяется до изменения доски: ошибка не должна оставить фишку без сыгранной карты
+        requireCardInHand(player, card, cardIndex);
+
         boolean twoEyed = isTwoEyedJack(card);
         boolean oneEyed = isOneEyedJack(card);
 
@@ -232,26 +413,26 @@ public class GameService {
         }
 
         if (twoEyed) {
-            if (target.getOwner() != null) throw new RuntimeException("Cell is occupied");
-            target.setOwner(player);
+            if (target.getOwnerId() != null) throw new RuntimeException("Cell is occupied");
+            placeChip(game, player, x, y);
             game.setLastMove(buildLastMove(player, card, x, y, false, true));
 
         } else if (oneEyed) {
-            if (target.getOwner() == null) throw new RuntimeException("No chip to remove");
-            if (isSameTeam(game, player, target.getOwner())) throw new RuntimeException("Cannot remove your own chip");
+            if (target.getOwnerId() == null) throw new RuntimeException("No chip to remove");
+            if (target.getTeam() == player.getTeam()) throw new RuntimeException("Cannot remove your own chip");
             if (isLockedChip(game, y, x)) {
                 throw new RuntimeException("Cannot remove chip from sequence");
             }
-            target.setOwner(null);
+            removeChip(game, x, y);
             game.setLastMove(buildLastMove(player, card, x, y, true, false));
 
         } else {
             // обычная карта — только на совпадающую клетку и только если свободно
-            if (!sameCard(target.getCard(), card)) {
+            if (!isCardCell(card, x, y)) {
                 throw new RuntimeException("Card does not match this cell");
             }
-            if (target.getOwner() != null) throw new RuntimeException("Cell is occupied");
-            target.setOwner(player);
+            if (target.getOwnerId() != null) throw new RuntimeException("Cell is occupied");
+            placeChip(game, player, x, y);
             game.setLastMove(buildLastMove(player, card, x, y, false, false));
         }
 
@@ -263,30 +444,46 @@ public class GameService {
         logHandSize("move", player);
 
         // победа: sequencesToWin
-        if (checkAndUpdateVictory(game, player)) {
-            finalizeGame(game);
-            return game;
+        if (checkAndUpdateVictory(game, player, x, y)) {
+            return;
         }
 
         // проверка ничьей
         if (checkAndUpdateDraw(game)) {
-            finalizeGame(game);
-            return game;
+            return;
         }
 
         // следующий игрок + дедлайн
-        advanceTurn(game);
-        saveActiveGame(game);
-        return game;
+        advanceTurn(game, now);
+    }
+
+    /**
+     * Снимок партии для поиска хода бота; null, если сейчас не ход этого игрока
+     */
+    SimState snapshotForBot(String gameId, String playerId) {
+        return withGameLock(gameId, () -> {
+            Game game = getGame(gameId);
+            if (game == null || game.getStatus() != GameStatus.STARTED) {
+                return null;
+            }
+            Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+            if (!current.getId().equals(playerId)) {
+                return null;
+            }
+            return SimState.of(game, bitBoard(game), game.isExchangeUsedThisTurn(), CELL_CARDS, CARD_CELLS);
+        });
     }
 
     public Game skipTurnIfStuck(String gameId, String playerId) {
-        Game game = getGame(gameId);
-        if (game == null) throw new RuntimeException("Game not found");
+        GameEvent event = GameEvent.skip(playerId, System.currentTimeMillis());
+        return withGameLock(gameId, () -> retryOnConflict(gameId, () -> doAction(gameId, event)));
+    }
+
+    private void applySkip(Game game, String playerId, long now) {
         if (game.getStatus() != GameStatus.STARTED) throw new RuntimeException("Game not started yet");
 
-        if (handleTimeoutIfNeeded(game)) {
-            return game;
+        if (handleTimeoutIfNeeded(game, now)) {
+            return;
         }
 
         Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
@@ -298,24 +495,25 @@ public class GameService {
             throw new RuntimeException("Player still has available actions");
         }
 
-        advanceTurn(game);
-        saveActiveGame(game);
-        return game;
+        advanceTurn(game, now);
     }
 
 
 
     public Game exchangeDeadCard(String gameId, String playerId, Card card) {
-        Game game = getGame(gameId);
-        if (game == null) throw new RuntimeException("Game not found");
+        GameEvent event = GameEvent.exchange(playerId, card, System.currentTimeMillis());
+        return withGameLock(gameId, () -> retryOnConflict(gameId, () -> doAction(gameId, event)));
+    }
+
+    private void applyExchange(Game game, String playerId, Card card, long now) {
         if (game.getStatus() != GameStatus.STARTED) throw new RuntimeException("Game not started yet");
 
-        if (handleTimeoutIfNeeded(game)) {
-            return game;
+        if (handleTimeoutIfNeeded(game, now)) {
+            return;
         }
 
-        if (checkAndSkipIfStuck(game)) {
-            return game;
+        if (checkAndSkipIfStuck(game, now)) {
+            return;
         }
 
         Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
@@ -323,7 +521,7 @@ public class GameService {
             throw new RuntimeException("Not your turn");
         }
         if (card == null) throw new RuntimeException("Card is required");
-        if (isExchangeUsedThisTurn(game)) throw new RuntimeException("Exchange already used this turn");
+        if (game.isExchangeUsedThisTurn()) throw new RuntimeException("Exchange already used this turn");
         if (game.getDeck().isEmpty()) throw new RuntimeException("Deck is empty");
 
         boolean inHand = current.getHand().stream().anyMatch(c -> sameCard(c, card));
@@ -335,40 +533,228 @@ public class GameService {
 
         drawCards(current, game.getDeck(), 1);
         ensureHandSize(current, game.getDeck(), getHandSize(game.getPlayers().size()));
-        setExchangeUsedThisTurn(game, true);
+        game.setExchangeUsedThisTurn(true);
         logHandSize("exchange", current);
 
-        if (checkAndUpdateDraw(game)) {
-            finalizeGame(game);
-            return game;
+        checkAndUpdateDraw(game);
+    }
+
+
+
+    /**
+     * Действие из MoveMessage (MOVE, EXCHANGE или SKIP) — для STOMP и пересылки с другого инстанса
+     */
+    public Game applyAction(MoveMessage message) {
+        String action = message.getAction();
+        if (action == null || action.isBlank()) {
+            action = "MOVE";
+        }
+
+        if ("EXCHANGE".equalsIgnoreCase(action)) {
+            return exchangeDeadCard(
+                    message.getGameId(),
+                    message.getPlayerId(),
+                    message.getCard()
+            );
+        }
+        if ("SKIP".equalsIgnoreCase(action)) {
+            return skipTurnIfStuck(
+                    message.getGameId(),
+                    message.getPlayerId()
+            );
+        }
+        if ("MOVE".equalsIgnoreCase(action)) {
+            return makeMove(
+                    message.getGameId(),
+                    message.getPlayerId(),
+                    message.getCard(),
+                    message.getCardIndex(),
+                    message.getX(),
+                    message.getY()
+            );
+        }
+        throw new RuntimeException("Unknown action: " + action);
+    }
+
+    /**
+     * Все допустимые действия игрока: цели для каждой карты, мёртвые карты, обмен и пропуск.
+     * Если ход не его — пустой список.
+     */
+    public LegalMoves getLegalMoves(String gameId, String playerId) {
+        return withGameLock(gameId, () -> doGetLegalMoves(gameId, playerId));
+    }
+
+    private LegalMoves doGetLegalMoves(String gameId, String playerId) {
+        Game game = getGame(gameId);
+        if (game == null) throw new RuntimeException("Game not found");
+
+        LegalMoves moves = new LegalMoves();
+        moves.setGameId(gameId);
+        moves.setPlayerId(playerId);
+        moves.setCards(new ArrayList<>());
+        if (game.getStatus() != GameStatus.STARTED) {
+            return moves;
+        }
+        Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+        if (!current.getId().equals(playerId)) {
+            return moves;
         }
 
-        saveActiveGame(game);
-        return game;
+        moves.setYourTurn(true);
+        boolean hasDead = false;
+        List<Card> hand = current.getHand();
+        for (int i = 0; i < hand.size(); i++) {
+            CardMoves cardMoves = new CardMoves();
+            cardMoves.setCardIndex(i);
+            cardMoves.setCard(hand.get(i));
+            cardMoves.setTargets(findTargets(game, current, hand.get(i)));
+            cardMoves.setDead(cardMoves.getTargets().isEmpty());
+            hasDead |= cardMoves.isDead();
+            moves.getCards().add(cardMoves);
+        }
+        moves.setExchangeAvailable(hasDead && !game.isExchangeUsedThisTurn() && !game.getDeck().isEmpty());
+        moves.setMustSkip(isCurrentPlayerStuck(game));
+        return moves;
+    }
+
+    private List<int[]> findTargets(Game game, Player player, Card card) {
+        List<int[]> targets = new ArrayList<>();
+        if (card == null) {
+            return targets;
+        }
+        BitBoard bitBoard = bitBoard(game);
+        if (isTwoEyedJack(card)) {
+            addTargets(targets, bitBoard.freeCellsLo(), 0);
+            addTargets(targets, bitBoard.freeCellsHi(), 64);
+        } else if (isOneEyedJack(card)) {
+            addTargets(targets, bitBoard.removableChipsLo(player.getTeam()), 0);
+            addTargets(targets, bitBoard.removableChipsHi(player.getTeam()), 64);
+        } else {
+            for (int cell : CARD_CELLS[card.getId()]) {
+                if (bitBoard.isFree(cell)) {
+                    targets.add(new int[]{cell % BOARD_SIZE, cell / BOARD_SIZE});
+                }
+            }
+        }
+        return targets;
     }
 
+    private void addTargets(List<int[]> targets, long mask, int offset) {
+        while (mask != 0) {
+            int cell = offset + Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            targets.add(new int[]{cell % BOARD_SIZE, cell / BOARD_SIZE});
+        }
+    }
 
+    /**
+     * Партии с истёкшим дедлайном хода; остальные активные партии не перебираются.
+     * Каждую нужно передать в finishIfExpired (на инстансе-владельце)
+     */
+    public List<String> pollExpiredGames() {
+        return turnDeadlines.pollExpired(System.currentTimeMillis());
+    }
 
-    private void skipTurn(Game game) {
-        advanceTurn(game);
-        saveActiveGame(game);
+    /**
+     * Завершить партию по таймауту хода; null, если партии нет или дедлайн ещё не наступил
+     */
+    public Game finishIfExpired(String gameId) {
+        return withGameLock(gameId, () -> retryOnConflict(gameId, () -> {
+            Game game = getGame(gameId);
+            if (game == null) {
+                turnDeadlines.cancel(gameId);
+                return null;
+            }
+            GameEvent event = GameEvent.timeout(System.currentTimeMillis());
+            if (!handleTimeoutIfNeeded(game, event.getAtEpochMs())) {
+                // дедлайн успел смениться — партия снова в очереди со своим настоящим дедлайном
+                if (game.getStatus() == GameStatus.STARTED) {
+                    turnDeadlines.schedule(gameId, game.getTurnDeadlineEpochMs());
+                }
+                return null;
+            }
+            persist(game, event);
+            return game;
+        }));
     }
 
-    public List<Game> finishExpiredGames() {
-        List<Game> finished = new ArrayList<>();
-        for (Game game : new ArrayList<>(games.values())) {
-            if (handleTimeoutIfNeeded(game)) {
-                finished.add(game);
+    /**
+     * Изменение партии с оптимистичной проверкой версии: если запись в Redis отклонена
+     * (партию успел изменить другой инстанс), копия в памяти выбрасывается, партия перечитывается
+     * из Redis и действие повторяется поверх свежего состояния. Отказ по правилам тоже может быть
+     * следствием устаревшей копии — тогда версия сверяется с Redis (только на этом пути, без лишних чтений на ходе)
+     */
+    private <T> T retryOnConflict(String gameId, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!(e instanceof StaleGameException) && !isStale(gameId)) {
+                    throw e;
+                }
+                evict(gameId);
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw new RuntimeException("Game was changed concurrently, try again");
+                }
+                log.info("game-write-conflict gameId={} attempt={}", gameId, attempt);
             }
         }
-        return finished;
     }
 
-    private boolean handleTimeoutIfNeeded(Game game) {
+    private boolean isStale(String gameId) {
+        Game game = games.get(gameId);
+        if (game == null || gameRedisTemplate == null) {
+            return false;
+        }
+        byte[] stored = gameRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(versionKey(gameId).getBytes(StandardCharsets.UTF_8)));
+        return stored != null && !Arrays.equals(stored, versionBytes(game.getVersion()));
+    }
+
+    /**
+     * Выгрузить партию из памяти: аренда досталась другому инстансу или копия устарела
+     */
+    private void evict(String gameId) {
+        withGameLock(gameId, () -> {
+            games.remove(gameId);
+            return null;
+        });
+    }
+
+    /**
+     * Выполнить действие в «полосе» игры: все изменения одной игры (STOMP, REST, таймер)
+     * идут строго по очереди, разные игры работают параллельно.
+     * Блокировка реентерабельная — внутри можно вызывать публичные методы сервиса.
+     */
+    public <T> T withGameLock(String gameId, Supplier<T> action) {
+        ReentrantLock lock = gameLock(gameId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock gameLock(String gameId) {
+        int hash = gameId == null ? 0 : gameId.hashCode();
+        hash ^= hash >>> 16;
+        return gameLocks[hash & (LOCK_STRIPES - 1)];
+    }
+
+    private static ReentrantLock[] createGameLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private boolean handleTimeoutIfNeeded(Game game, long now) {
         if (game.getStatus() != GameStatus.STARTED) {
             return false;
         }
-        if (System.currentTimeMillis() <= game.getTurnDeadlineEpochMs()) {
+        if (now <= game.getTurnDeadlineEpochMs()) {
             return false;
         }
         List<Player> players = game.getPlayers();
@@ -381,14 +767,12 @@ public class GameService {
         game.setStatus(GameStatus.FINISHED);
         game.setResult(GameResult.WIN);
         game.setWinnerKey(getSequenceKey(game, winner));
-        finalizeGame(game);
         return true;
     }
 
     private boolean sameCard(Card a, Card b) {
-        return a != null && b != null
-                && Objects.equals(a.getRank(), b.getRank())
-                && Objects.equals(a.getSuit(), b.getSuit());
+        // карты — общие экземпляры, достаточно сравнить ссылки
+        return a != null && a == b;
     }
 
 
@@ -397,30 +781,30 @@ public class GameService {
      * Проверка победы игрока
      */
     public boolean checkVictory(Game game, Player player) {
-        return findSequences(game, player).size() >= getSequencesToWin(game);
+        return bitBoard(game).countCompleteWindows(player.getTeam()) >= getSequencesToWin(game);
     }
 
     /**
      * Рисуем карты игроку из колоды
      */
-    private void drawCards(Player player, List<Card> deck, int count) {
+    private void drawCards(Player player, Deck deck, int count) {
         for (int i = 0; i < count && !deck.isEmpty(); i++) {
-            player.getHand().add(deck.remove(0));
+            player.getHand().add(deck.draw());
         }
         logHandSize("draw", player);
     }
 
-    private void ensureHandSize(Player player, List<Card> deck, int targetSize) {
+    private void ensureHandSize(Player player, Deck deck, int targetSize) {
         if (player.getHand() == null) {
             player.setHand(new ArrayList<>());
         }
         while (player.getHand().size() < targetSize && !deck.isEmpty()) {
-            player.getHand().add(deck.remove(0));
+            player.getHand().add(deck.draw());
         }
         logHandSize("ensure", player);
     }
 
-    private void removeCardFromHand(Player player, Card card, Integer cardIndex) {
+    private void requireCardInHand(Player player, Card card, Integer cardIndex) {
         if (player.getHand() == null || player.getHand().isEmpty()) {
             throw new RuntimeException("Card not in hand");
         }
@@ -428,66 +812,53 @@ public class GameService {
             if (cardIndex < 0 || cardIndex >= player.getHand().size()) {
                 throw new RuntimeException("Card index out of range");
             }
-            Card selected = player.getHand().get(cardIndex);
-            if (!sameCard(selected, card)) {
+            if (!sameCard(player.getHand().get(cardIndex), card)) {
                 throw new RuntimeException("Card index does not match card");
             }
-            player.getHand().remove((int) cardIndex);
-            logHandSize("remove", player);
             return;
         }
-        boolean removed = player.getHand().removeIf(c -> sameCard(c, card));
-        if (!removed) {
+        if (player.getHand().stream().noneMatch(c -> sameCard(c, card))) {
             throw new RuntimeException("Card not in hand");
         }
-        logHandSize("remove", player);
     }
 
     /**
-     * Генерация колоды из двух стандартных колод
+     * Убрать сыгранную карту; наличие уже проверено requireCardInHand
      */
-    private List<Card> generateDeck() {
-        String[] suits = {"Hearts", "Diamonds", "Clubs", "Spades"};
-        String[] ranks = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A"};
-        List<Card> deck = new ArrayList<>();
-        for (int d = 0; d < 2; d++) { // две колоды
-            for (String suit : suits) {
-                for (String rank : ranks) {
-                    Card c = new Card();
-                    c.setSuit(suit);
-                    c.setRank(rank);
-                    deck.add(c);
-                }
-            }
+    private void removeCardFromHand(Player player, Card card, Integer cardIndex) {
+        if (cardIndex != null) {
+            player.getHand().remove((int) cardIndex);
+        } else {
+            player.getHand().removeIf(c -> sameCard(c, card));
         }
-        return deck;
+        logHandSize("remove", player);
     }
 
     /**
      * Проверка Two-Eyed Jack (J бубны или трефы)
      */
     private boolean isTwoEyedJack(Card card) {
-        return card != null
-                && "J".equals(card.getRank())
-                && ("Diamonds".equals(card.getSuit()) || "Clubs".equals(card.getSuit()));
+        return card != null && card.twoEyedJack();
     }
 
     /**
      * Проверка One-Eyed Jack (J пики или червы)
      */
     private boolean isOneEyedJack(Card card) {
-        return card != null
-                && "J".equals(card.getRank())
-                && ("Spades".equals(card.getSuit()) || "Hearts".equals(card.getSuit()));
+        return card != null && card.oneEyedJack();
     }
 
-    private void advanceTurn(Game game) {
+    private void advanceTurn(Game game, long now) {
         game.setCurrentPlayerIndex((game.getCurrentPlayerIndex() + 1) % game.getPlayers().size());
-        game.setTurnDeadlineEpochMs(System.currentTimeMillis() + TURN_MS);
-        setExchangeUsedThisTurn(game, false);
+        game.setTurnDeadlineEpochMs(now + TURN_MS);
+        turnDeadlines.schedule(game.getId(), game.getTurnDeadlineEpochMs());
+        game.setExchangeUsedThisTurn(false);
     }
 
     private Game getGame(String gameId) {
+        if (gameId == null) {
+            return null;
+        }
         Game game = games.get(gameId);
         if (game != null) {
             return game;
@@ -495,100 +866,296 @@ public class GameService {
         if (gameRedisTemplate == null) {
             return null;
         }
+        // в памяти держит и меняет партию только владелец; запросы к чужим партиям пересылаются раньше
+        if (ownership != null && ownership.ownerOf(gameId) != null) {
+            throw new RuntimeException("Game is owned by another node");
+        }
         game = gameRedisTemplate.opsForValue().get(redisKey(gameId));
+        if (game == null && ownership != null) {
+            ownership.release(gameId);
+        }
         if (game != null) {
-            games.put(gameId, game);
+            restoreTeams(game);
+            replayEvents(game);
+            cacheGame(game);
+            if (game.getStatus() == GameStatus.STARTED) {
+                turnDeadlines.schedule(gameId, game.getTurnDeadlineEpochMs());
+            }
         }
         return game;
     }
 
+    /**
+     * Догнать снимок из Redis событиями журнала, записанными после него
+     */
+    private void replayEvents(Game game) {
+        if (eventLog == null || !eventLog.isEnabled()) {
+            return;
+        }
+        for (GameEvent event : eventLog.read(game.getId())) {
+            if (event.getSeq() <= game.getEventSeq()) {
+                continue;
+            }
+            applyEvent(game, event);
+            game.setEventSeq(event.getSeq());
+            game.setVersion(game.getVersion() + 1);
+        }
+    }
+
+    /**
+     * Сохранить результат действия: законченная партия финализируется; в режиме событий
+     * в Redis дописывается одно событие, а полный снимок пишется раз в snapshotEvery событий
+     */
+    private void persist(Game game, GameEvent event) {
+        game.setVersion(game.getVersion() + 1);
+        if (game.getStatus() == GameStatus.FINISHED) {
+            finalizeGame(game);
+            return;
+        }
+        if (eventLog == null || !eventLog.isEnabled()) {
+            saveActiveGame(game);
+            return;
+        }
+        game.setEventSeq(game.getEventSeq() + 1);
+        event.setSeq(game.getEventSeq());
+        if (game.getEventSeq() % eventLog.getSnapshotEvery() == 0) {
+            saveActiveGame(game);
+        } else {
+            writeThenCache(game, () -> eventLog.append(game.getId(), event, game.getVersion() - 1, game.getVersion()));
+        }
+    }
+
+    /**
+     * Записать снимок; версия перед изменением — game.version - 1 (каждое изменение её увеличивает)
+     */
     private void saveActiveGame(Game game) {
-        games.put(game.getId(), game);
-        if (gameRedisTemplate != null) {
-            gameRedisTemplate.opsForValue().set(redisKey(game.getId()), game);
+        if (gameRedisTemplate == null) {
+            cacheGame(game);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        byte[] snapshot = ((RedisSerializer<Game>) gameRedisTemplate.getValueSerializer()).serialize(game);
+        writeThenCache(game, () -> {
+            // снимок покрывает все события до него, журнал очищается тем же скриптом
+            Long saved = gameRedisTemplate.execute(SAVE_SNAPSHOT, RedisSerializer.byteArray(), null,
+                    List.of(redisKey(game.getId()), versionKey(game.getId()), GameEventLog.key(game.getId())),
+                    versionBytes(game.getVersion() - 1), versionBytes(game.getVersion()), snapshot,
+                    versionBytes(gameTtlMs()));
+            return saved != null && saved != 0;
+        });
+    }
+
+    /**
+     * Сначала запись в Redis, потом кэш. Партия меняется на месте, поэтому при неудачной записи
+     * изменённая копия выбрасывается из памяти — следующий запрос прочитает то, что лежит в Redis
+     */
+    private void writeThenCache(Game game, BooleanSupplier write) {
+        boolean written;
+        try {
+            written = write.getAsBoolean();
+        } catch (RuntimeException e) {
+            games.remove(game.getId());
+            throw e;
+        }
+        if (!written) {
+            games.remove(game.getId());
+            throw new StaleGameException();
         }
+        cacheGame(game);
     }
 
     private void finalizeGame(Game game) {
-        updatePlayerStats(game);
-        saveFinishedGame(game);
-        games.remove(game.getId());
-        exchangeUsedByGame.remove(game.getId());
-        if (gameRedisTemplate != null) {
-            gameRedisTemplate.delete(redisKey(game.getId()));
+        // итоги уходят в outbox тем же скриптом, что снимает партию: если её уже изменил другой инстанс,
+        // не меняется ничего, а после успешного снятия итоги уже не потеряются
+        byte[] outcome = finalizer == null ? new byte[0] : finalizer.outcome(game, statChanges(game));
+        deleteActiveGame(game, outcome);
+        if (finalizer != null) {
+            finalizer.wakeUp();
         }
+        forget(game.getId());
     }
 
-    private void updatePlayerStats(Game game) {
-        if (userProfileRepository == null) {
+    /**
+     * Удалить законченную партию из Redis (снимок, журнал; версия становится меткой FINISHED_VERSION)
+     * и положить её итоги в outbox. Без Redis (headless-прогоны) итоги не пишутся
+     */
+    private void deleteActiveGame(Game game, byte[] outcome) {
+        if (gameRedisTemplate == null) {
             return;
         }
-        if (game.getPlayers() == null || game.getPlayers().isEmpty()) {
-            return;
+        Long deleted = gameRedisTemplate.execute(DELETE_SNAPSHOT, RedisSerializer.byteArray(), null,
+                List.of(redisKey(game.getId()), versionKey(game.getId()), GameEventLog.key(game.getId()),
+                        GameFinalizer.OUTBOX_KEY),
+                versionBytes(game.getVersion() - 1), FINISHED_VERSION.getBytes(StandardCharsets.UTF_8),
+                versionBytes(FINISHED_VERSION_TTL_SECONDS), outcome);
+        if (deleted == null || deleted == 0) {
+            throw new StaleGameException();
         }
-        if (game.getResult() == null) {
-            return;
+    }
+
+    /**
+     * Забыть партию на этом инстансе: память, дедлайн хода, аренда
+     */
+    private void forget(String gameId) {
+        games.remove(gameId);
+        turnDeadlines.cancel(gameId);
+        if (ownership != null) {
+            ownership.release(gameId);
         }
+    }
 
-        String winnerKey = game.getWinnerKey();
-        java.time.Instant now = java.time.Instant.now();
-        for (Player player : game.getPlayers()) {
-            if (player.getName() == null || player.getName().isBlank()) {
-                continue;
-            }
-            Optional<UserProfile> profileOptional = userProfileRepository.findByDisplayNameIgnoreCase(player.getName());
-            if (profileOptional.isEmpty()) {
-                continue;
+    /**
+     * Положить партию в кэш; при переполнении выгрузить самые давно не читанные.
+     * Без Redis выгружать нельзя — партию неоткуда будет прочитать
+     */
+    private void cacheGame(Game game) {
+        games.put(game);
+        if (gameRedisTemplate == null) {
+            return;
+        }
+        for (String gameId : games.overflow()) {
+            // чужую полосу не ждём: занятая партия сейчас в работе, выгрузим другую.
+            // Свою полосу тоже пропускаем: tryLock на ней реентерабельно удастся, а партию
+            // этой полосы, возможно, меняет этот же поток выше по стеку
+            ReentrantLock lock = gameLock(gameId);
+            if (!lock.isHeldByCurrentThread() && lock.tryLock()) {
+                try {
+                    unload(gameId);
+                } finally {
+                    lock.unlock();
+                }
             }
-            UserProfile profile = profileOptional.get();
-            int gamesPlayed = safeInt(profile.getGamesPlayed()) + 1;
-            profile.setGamesPlayed(gamesPlayed);
+        }
+    }
 
-            if (game.getResult() == GameResult.WIN && winnerKey != null) {
-                boolean isWinner = winnerKey.equals(getSequenceKey(game, player));
-                if (isWinner) {
-                    profile.setWins(safeInt(profile.getWins()) + 1);
-                    profile.setRating(Math.max(0, safeInt(profile.getRating()) + 10));
-                } else {
-                    profile.setLosses(safeInt(profile.getLosses()) + 1);
-                    profile.setRating(Math.max(0, safeInt(profile.getRating()) - 10));
+    /**
+     * Выгрузить партию, которую давно не читали: состояние остаётся в Redis, аренда отпускается —
+     * следующий запрос загрузит партию на любом инстансе. Дедлайн хода остаётся в очереди
+     */
+    private void unload(String gameId) {
+        games.remove(gameId);
+        if (ownership != null) {
+            ownership.release(gameId);
+        }
+    }
+
+    /**
+     * Выгрузить из памяти партии, которые не читали дольше wildjack.cache.idle-ms
+     */
+    public int evictIdleGames() {
+        if (gameRedisTemplate == null) {
+            return 0;
+        }
+        List<String> idle = games.idle(System.currentTimeMillis());
+        for (String gameId : idle) {
+            withGameLock(gameId, () -> {
+                unload(gameId);
+                return null;
+            });
+        }
+        return idle.size();
+    }
+
+    /**
+     * Закрыть брошенные партии: лобби, которое не менялось дольше wildjack.cache.lobby-idle-ms,
+     * и начатую партию, где осталось меньше двух игроков (её таймаут хода не завершит).
+     * Итоги не записываются; возвращаются закрытые партии — их нужно разослать подписчикам
+     */
+    public List<Game> reapAbandonedGames() {
+        List<Game> reaped = new ArrayList<>();
+        for (String gameId : games.unchanged(System.currentTimeMillis())) {
+            Game closed = withGameLock(gameId, () -> {
+                // peek: иначе проверка продлевала бы жизнь каждой простаивающей партии и evictIdleGames её не выгрузил бы
+                Game game = games.peek(gameId);
+                if (game == null || !isAbandoned(game)) {
+                    return null;
                 }
-            } else if (game.getResult() == GameResult.DRAW) {
-                profile.setRating(Math.max(0, safeInt(profile.getRating())));
+                game.setStatus(GameStatus.FINISHED);
+                game.setVersion(game.getVersion() + 1);
+                try {
+                    deleteActiveGame(game, new byte[0]);
+                } catch (StaleGameException e) {
+                    // партию успели изменить — значит, она не брошена
+                    evict(gameId);
+                    return null;
+                }
+                forget(gameId);
+                log.info("game-reaped gameId={} players={}", gameId, game.getPlayers().size());
+                return game;
+            });
+            if (closed != null) {
+                reaped.add(closed);
             }
+        }
+        return reaped;
+    }
 
-            profile.setUpdatedAt(now);
-            userProfileRepository.save(profile);
+    private boolean isAbandoned(Game game) {
+        if (game.getStatus() == GameStatus.WAITING) {
+            return true;
         }
+        return game.getStatus() == GameStatus.STARTED
+                && (game.getPlayers() == null || game.getPlayers().size() < 2);
     }
 
-    private int safeInt(Integer value) {
-        return value == null ? 0 : value;
+    private long gameTtlMs() {
+        return eventLog != null ? eventLog.getGameTtlMs() : DEFAULT_GAME_TTL_MS;
     }
 
-    private void saveFinishedGame(Game game) {
-        if (finishedGameRepository == null) {
-            return;
+    /**
+     * Изменения статистики игроков, вошедших через Telegram: +10 рейтинга победителю, -10 проигравшему,
+     * ничья рейтинг не меняет. Гости и боты в статистике не учитываются
+     */
+    private List<StatChange> statChanges(Game game) {
+        List<StatChange> changes = new ArrayList<>();
+        if (game.getResult() == null || game.getPlayers() == null) {
+            return changes;
         }
-        try {
-            FinishedGame finishedGame = new FinishedGame();
-            finishedGame.setId(game.getId());
-            finishedGame.setPayload(objectMapper.writeValueAsString(game));
-            finishedGame.setFinishedAt(java.time.Instant.now());
-            finishedGameRepository.save(finishedGame);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize finished game", e);
+        String winnerKey = game.getWinnerKey();
+        for (Player player : game.getPlayers()) {
+            if (player.isBot() || player.getTelegramId() == null) {
+                continue;
+            }
+            if (game.getResult() == GameResult.WIN && winnerKey != null) {
+                boolean isWinner = winnerKey.equals(getSequenceKey(game, player));
+                changes.add(isWinner
+                        ? new StatChange(player.getTelegramId(), 1, 0, 10)
+                        : new StatChange(player.getTelegramId(), 0, 1, -10));
+            } else {
+                changes.add(new StatChange(player.getTelegramId(), 0, 0, 0));
+            }
         }
+        return changes;
     }
 
-    private String redisKey(String gameId) {
+    static String redisKey(String gameId) {
         return "game:" + gameId;
     }
 
-    private boolean checkAndUpdateVictory(Game game, Player player) {
+    /**
+     * Версия партии, сохранённой в Redis (снимок плюс журнал) — по ней проверяются все записи
+     */
+    static String versionKey(String gameId) {
+        return "game:" + gameId + ":version";
+    }
+
+    private static byte[] versionBytes(long version) {
+        return String.valueOf(version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Запись отклонена: версия партии в Redis не та, от которой шло изменение
+     */
+    private static final class StaleGameException extends RuntimeException {
+        StaleGameException() {
+            super("Game was changed concurrently", null, false, false);
+        }
+    }
+
+    private boolean checkAndUpdateVictory(Game game, Player player, int x, int y) {
         Map<String, Integer> sequencesByKey = ensureSequencesSnapshot(game);
         String key = getSequenceKey(game, player);
-        int newSequences = countNewSequences(game, player);
+        int newSequences = countNewSequences(game, player, x, y);
         if (newSequences > 0) {
             sequencesByKey.put(key, sequencesByKey.getOrDefault(key, 0) + newSequences);
         }
@@ -616,49 +1183,8 @@ public class GameService {
         return sequencesByKey;
     }
 
-    private int countNewSequences(Game game, Player player) {
-        Set<Position> existingSequencePositions = getSequencePositions(game);
-        Set<Position> usedPositions = new HashSet<>(existingSequencePositions);
-        int count = 0;
-        for (Sequence sequence : findSequences(game, player)) {
-            if (!isSequenceAllowed(sequence.positions(), existingSequencePositions, usedPositions)) {
-                continue;
-            }
-            count++;
-            for (Position position : sequence.positions()) {
-                game.getBoard()[position.y()][position.x()].setSequence(true);
-                usedPositions.add(position);
-            }
-        }
-        return count;
-    }
-
-    private boolean isSequenceAllowed(List<Position> positions,
-                                      Set<Position> existingSequencePositions,
-                                      Set<Position> usedPositions) {
-        int overlapExisting = 0;
-        int overlapNew = 0;
-        for (Position position : positions) {
-            if (existingSequencePositions.contains(position)) {
-                overlapExisting++;
-            } else if (usedPositions.contains(position)) {
-                overlapNew++;
-            }
-        }
-        return overlapExisting <= 1 && overlapNew == 0;
-    }
-
-    private Set<Position> getSequencePositions(Game game) {
-        Set<Position> positions = new HashSet<>();
-        Cell[][] board = game.getBoard();
-        for (int y = 0; y < board.length; y++) {
-            for (int x = 0; x < board[y].length; x++) {
-                if (board[y][x].isSequence()) {
-                    positions.add(new Position(x, y));
-                }
-            }
-        }
-        return positions;
+    private int countNewSequences(Game game, Player player, int x, int y) {
+        return bitBoard(game).lockNewSequences(player.getTeam(), x, y, game.getBoard());
     }
 
     private boolean checkAndUpdateDraw(Game game) {
@@ -688,116 +1214,62 @@ public class GameService {
     }
 
     private boolean hasFreeCell(Game game) {
-        for (Cell[] row : game.getBoard()) {
-            for (Cell cell : row) {
-                if (!cell.isCorner() && !cell.isSequence() && cell.getOwner() == null) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return bitBoard(game).hasFreeCell();
     }
 
     private boolean hasOpponentChip(Game game, Player player) {
-        Set<Position> locked = getLockedPositionsForOpponents(game, player);
-        for (int x = 0; x < game.getBoard().length; x++) {
-            for (int y = 0; y < game.getBoard()[x].length; y++) {
-                Cell cell = game.getBoard()[x][y];
-                if (!cell.isCorner()
-                        && cell.getOwner() != null
-                        && !isSameTeam(game, player, cell.getOwner())
-                        && !locked.contains(new Position(x, y))) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return bitBoard(game).hasOpponentChip(player.getTeam());
     }
 
     private boolean hasFreeMatchingCell(Game game, Card card) {
-        for (Cell[] row : game.getBoard()) {
-            for (Cell cell : row) {
-                if (cell.isCorner()) {
-                    continue;
-                }
-                if (cell.isSequence()) {
-                    continue;
-                }
-                if (sameCard(cell.getCard(), card) && cell.getOwner() == null) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return card != null && bitBoard(game).freeMatchingCells(card.getId()) > 0;
     }
 
-    private List<Sequence> findSequences(Game game, Player player) {
-        List<Sequence> allSequences = new ArrayList<>();
-        Set<SequenceKey> seen = new HashSet<>();
-        Cell[][] board = game.getBoard();
-        int size = board.length;
-        int[][] directions = new int[][]{
-                {0, 1}, {1, 0}, {1, 1}, {1, -1}
-        };
-
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                for (int[] dir : directions) {
-                    int dx = dir[0];
-                    int dy = dir[1];
-                    List<Position> positions = new ArrayList<>();
-                    for (int step = 0; step < SEQUENCE_LENGTH; step++) {
-                        int nx = x + dx * step;
-                        int ny = y + dy * step;
-                        if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
-                            positions.clear();
-                            break;
-                        }
-                        if (!ownsCellForTeam(board[ny][nx], game, player)) {
-                            positions.clear();
-                            break;
-                        }
-                        positions.add(new Position(nx, ny));
-                    }
-                    if (!positions.isEmpty()) {
-                        SequenceKey key = new SequenceKey(x, y, dx, dy);
-                        if (seen.add(key)) {
-                            allSequences.add(new Sequence(positions));
-                        }
-                    }
-                }
+    private boolean isCardCell(Card card, int x, int y) {
+        if (card == null) {
+            return false;
+        }
+        for (int cell : CARD_CELLS[card.getId()]) {
+            if (cell == BitBoard.index(x, y)) {
+                return true;
             }
         }
-        return allSequences;
+        return false;
     }
 
-    private record SequenceKey(int x, int y, int dx, int dy) {
+    private String getSequenceKey(Game game, Player player) {
+        return "TEAM_" + player.getTeam();
     }
 
-    private boolean ownsCellForTeam(Cell cell, Game game, Player player) {
-        if (cell.isCorner()) {
-            return true;
+    /**
+     * Команды фиксируются один раз, когда состав игры окончательный: игрок i — команда i % teamCount
+     */
+    private void assignTeams(Game game) {
+        int teamCount = getTeamCount(game);
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).setTeam(i % teamCount);
         }
-        Player owner = cell.getOwner();
-        return owner != null && isSameTeam(game, player, owner);
-    }
-
-    private boolean isSameTeam(Game game, Player a, Player b) {
-        return getTeamIndex(game, a) == getTeamIndex(game, b);
     }
 
-    private int getTeamIndex(Game game, Player player) {
-        for (int i = 0; i < game.getPlayers().size(); i++) {
-            if (game.getPlayers().get(i).getId().equals(player.getId())) {
-                return i % getTeamCount(game);
+    /**
+     * Игра из Redis: восстановить команды игроков и владельцев клеток, если их нет (старый формат)
+     */
+    private void restoreTeams(Game game) {
+        if (game.getStatus() == GameStatus.WAITING || game.getPlayers() == null) {
+            return;
+        }
+        assignTeams(game);
+        for (Cell[] row : game.getBoard()) {
+            for (Cell cell : row) {
+                if (cell.getOwnerId() != null && cell.getTeam() < 0) {
+                    game.getPlayers().stream()
+                            .filter(p -> cell.getOwnerId().equals(p.getId()))
+                            .findFirst()
+                            .ifPresent(p -> cell.setTeam(p.getTeam()));
+                }
             }
         }
-        return -1;
-    }
-
-    private String getSequenceKey(Game game, Player player) {
-        int teamIndex = getTeamIndex(game, player);
-        return "TEAM_" + teamIndex;
     }
 
     private int getTeamCount(Game game) {
@@ -815,31 +1287,26 @@ public class GameService {
         return 2;
     }
 
-    private boolean isExchangeUsedThisTurn(Game game) {
-        return exchangeUsedByGame.getOrDefault(game.getId(), false);
-    }
-
-    private void setExchangeUsedThisTurn(Game game, boolean used) {
-        exchangeUsedByGame.put(game.getId(), used);
-    }
-
-    private boolean checkAndSkipIfStuck(Game game) {
+    private boolean checkAndSkipIfStuck(Game game, long now) {
         if (!isCurrentPlayerStuck(game)) {
             return false;
         }
-        skipTurn(game);
+        advanceTurn(game, now);
         return true;
     }
 
-    private boolean isCurrentPlayerStuck(Game game) {
+    boolean isCurrentPlayerStuck(Game game) {
         Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
-        boolean hasPlayable = current.getHand().stream().anyMatch(card -> isCardPlayable(game, current, card));
-        if (hasPlayable) {
-            return false;
+        // каждая проверка — чтение счётчиков битборда, без обхода доски
+        for (Card card : current.getHand()) {
+            if (isCardPlayable(game, current, card)) {
+                return false;
+            }
         }
-        boolean canExchange = !isExchangeUsedThisTurn(game)
+        // играбельных карт нет — значит, все карты на руке мёртвые
+        boolean canExchange = !game.isExchangeUsedThisTurn()
                 && !game.getDeck().isEmpty()
-                && current.getHand().stream().anyMatch(card -> isCardDead(game, current, card));
+                && !current.getHand().isEmpty();
         return !canExchange;
     }
 
@@ -857,24 +1324,31 @@ public class GameService {
     }
 
     private boolean isLockedChip(Game game, int y, int x) {
-        return game.getBoard()[y][x].isSequence();
+        return bitBoard(game).isSequence(x, y);
     }
 
-    private Set<Position> getLockedPositionsForOpponents(Game game, Player player) {
-        Set<Position> locked = new HashSet<>();
-        Cell[][] board = game.getBoard();
-        for (int y = 0; y < board.length; y++) {
-            for (int x = 0; x < board[y].length; x++) {
-                Cell cell = board[y][x];
-                if (cell.getOwner() == null || !cell.isSequence()) {
-                    continue;
-                }
-                if (!isSameTeam(game, player, cell.getOwner())) {
-                    locked.add(new Position(x, y));
-                }
-            }
+    private void placeChip(Game game, Player player, int x, int y) {
+        Cell cell = game.getBoard()[y][x];
+        cell.setOwnerId(player.getId());
+        cell.setTeam(player.getTeam());
+        bitBoard(game).place(x, y, player.getTeam());
+    }
+
+    private void removeChip(Game game, int x, int y) {
+        Cell cell = game.getBoard()[y][x];
+        cell.setOwnerId(null);
+        cell.setTeam(-1);
+        bitBoard(game).remove(x, y);
+    }
+
+    private BitBoard bitBoard(Game game) {
+        BitBoard bitBoard = game.getBitBoard();
+        if (bitBoard == null) {
+            // игра пришла из Redis — собираем битборд заново по клеткам
+            bitBoard = BitBoard.from(game.getBoard(), CELL_CARDS);
+            game.setBitBoard(bitBoard);
         }
-        return locked;
+        return bitBoard;
     }
 
     private static List<Card> buildBoardTemplate() {
@@ -901,11 +1375,36 @@ public class GameService {
         return cards;
     }
 
-    private static Card createCard(String suit, String rank) {
-        Card card = new Card();
-        card.setSuit(suit);
-        card.setRank(rank);
-        return card;
+    private static byte[] buildCellCards() {
+        byte[] cellCards = new byte[BitBoard.CELLS];
+        Iterator<Card> it = BOARD_TEMPLATE.iterator();
+        for (int y = 0; y < BOARD_SIZE; y++) {
+            for (int x = 0; x < BOARD_SIZE; x++) {
+                cellCards[BitBoard.index(x, y)] = isCornerCell(x, y) ? -1 : it.next().getId();
+            }
+        }
+        return cellCards;
+    }
+
+    private static int[][] buildCardCells() {
+        int[][] cardCells = new int[Card.COUNT][];
+        int[] found = new int[Card.COUNT];
+        for (int cardId = 0; cardId < Card.COUNT; cardId++) {
+            cardCells[cardId] = new int[2];
+        }
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            int cardId = CELL_CARDS[cell];
+            if (cardId >= 0) {
+                cardCells[cardId][found[cardId]++] = cell;
+            }
+        }
+        for (int cardId = 0; cardId < Card.COUNT; cardId++) {
+            if (found[cardId] != cardCells[cardId].length) {
+                // валетов на доске нет
+                cardCells[cardId] = new int[0];
+            }
+        }
+        return cardCells;
     }
 
     private static Card parseCard(String token) {
@@ -918,7 +1417,7 @@ public class GameService {
             case "S" -> "Spades";
             default -> throw new IllegalArgumentException("Unknown suit: " + suitToken);
         };
-        return createCard(suit, rank);
+        return Card.of(suit, rank);
     }
 
     private static int getHandSize(int playersCount) {
@@ -932,16 +1431,6 @@ public class GameService {
                 || (x == 9 && y == 9);
     }
 
-    private void shuffleDeck(List<Card> deck) {
-        Random random = new Random();
-        for (int i = deck.size() - 1; i > 0; i--) {
-            int j = random.nextInt(i + 1);
-            Card temp = deck.get(i);
-            deck.set(i, deck.get(j));
-            deck.set(j, temp);
-        }
-    }
-
     private String generateGameId() {
         Random random = new Random();
         for (int attempt = 0; attempt < 1000; attempt++) {
@@ -951,19 +1440,13 @@ public class GameService {
                 builder.append(GAME_ID_ALPHABET.charAt(index));
             }
             String id = builder.toString();
-            if (!games.containsKey(id)) {
+            if (!games.contains(id)) {
                 return id;
             }
         }
         return UUID.randomUUID().toString();
     }
 
-    private record Sequence(List<Position> positions) {
-    }
-
-    private record Position(int x, int y) {
-    }
-
     private LastMove buildLastMove(Player player, Card card, int x, int y, boolean isJackRemove, boolean isJackWild) {
         LastMove lastMove = new LastMove();
         lastMove.setX(x);
@@ -1,21 +1,45 @@
 package com.quick.wildjack.wildjack;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+/**
+ * Таймаут хода. Проверка дешёвая (истёкшие дедлайны берутся из очереди в GameService),
+ * поэтому тикает часто — точность таймаута около check-ms
+ */
 @Component
 @RequiredArgsConstructor
 public class GameTimeoutScheduler {
 
+    private static final Logger log = LoggerFactory.getLogger(GameTimeoutScheduler.class);
+
     private final GameService gameService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final GamePublisher gamePublisher;
+    private final GameOwnership ownership;
+    private final GameForwarder forwarder;
 
-    @Scheduled(fixedDelayString = "${wildjack.timeout.check-ms:1000}")
+    @Scheduled(fixedDelayString = "${wildjack.timeout.check-ms:100}")
     public void checkTimeouts() {
-        for (Game game : gameService.finishExpiredGames()) {
-            messagingTemplate.convertAndSend("/topic/game/" + game.getId(), game);
+        for (String gameId : gameService.pollExpiredGames()) {
+            try {
+                String owner = ownership.ownerOf(gameId);
+                if (owner != null) {
+                    forwarder.forwardTimeout(owner, gameId);
+                    continue;
+                }
+                gameService.withGameLock(gameId, () -> {
+                    Game game = gameService.finishIfExpired(gameId);
+                    if (game != null) {
+                        gamePublisher.publish(game);
+                    }
+                    return game;
+                });
+            } catch (RuntimeException e) {
+                log.warn("timeout-check-failed gameId={} error={}", gameId, e.getMessage());
+            }
         }
     }
 }
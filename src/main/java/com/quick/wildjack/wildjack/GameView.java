@@ -0,0 +1,63 @@
+package com.quick.wildjack.wildjack;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Публичное состояние партии для /topic/game/{id}: всё как в Game, но без рук игроков и колоды.
+ * Свою руку игрок получает в /user/queue/hand.
+ */
+@Data
+public class GameView {
+    private String id;
+    private List<Player> players;           // без hand
+    private Map<String, Integer> handSizes;
+    private Cell[][] board;
+    private int currentPlayerIndex;
+    private GameStatus status;
+    private int maxPlayers;
+    private long turnDeadlineEpochMs;
+    private boolean isTeamGame;
+    private GameResult result;
+    private String winnerKey;
+    private Map<String, Integer> sequencesByKey;
+    private LastMove lastMove;
+    private long version;
+    private int deckSize;
+
+    public static GameView of(Game game) {
+        GameView view = new GameView();
+        view.setId(game.getId());
+        List<Player> players = new ArrayList<>();
+        Map<String, Integer> handSizes = new HashMap<>();
+        for (Player player : game.getPlayers()) {
+            Player copy = new Player();
+            copy.setId(player.getId());
+            copy.setName(player.getName());
+            copy.setColor(player.getColor());
+            copy.setTeam(player.getTeam());
+            copy.setBot(player.isBot());
+            players.add(copy);
+            handSizes.put(player.getId(), player.getHand() == null ? 0 : player.getHand().size());
+        }
+        view.setPlayers(players);
+        view.setHandSizes(handSizes);
+        view.setBoard(game.getBoard());
+        view.setCurrentPlayerIndex(game.getCurrentPlayerIndex());
+        view.setStatus(game.getStatus());
+        view.setMaxPlayers(game.getMaxPlayers());
+        view.setTurnDeadlineEpochMs(game.getTurnDeadlineEpochMs());
+        view.setTeamGame(game.isTeamGame());
+        view.setResult(game.getResult());
+        view.setWinnerKey(game.getWinnerKey());
+        view.setSequencesByKey(game.getSequencesByKey());
+        view.setLastMove(game.getLastMove());
+        view.setVersion(game.getVersion());
+        view.setDeckSize(game.getDeckSize());
+        return view;
+    }
+}
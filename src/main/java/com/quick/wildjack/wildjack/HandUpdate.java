@@ -0,0 +1,15 @@
+package com.quick.wildjack.wildjack;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Рука игрока — только ему, в /user/queue/hand
+ */
+@Data
+public class HandUpdate {
+    private String gameId;
+    private long version;
+    private List<Card> hand;
+}
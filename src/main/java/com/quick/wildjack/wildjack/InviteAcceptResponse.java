@@ -2,9 +2,16 @@ package com.quick.wildjack.wildjack;
 
 import lombok.Data;
 
+import java.util.List;
+
+/**
+ * Принятое приглашение: как JoinGameResponse — публичное состояние, своя рука и токен сессии
+ */
 @Data
 public class InviteAcceptResponse {
     private GameInvite invite;
-    private Game game;
+    private GameView game;
     private String playerId;
+    private String sessionToken;
+    private List<Card> hand;
 }
@@ -12,15 +12,21 @@ public class InviteService {
     private final GameInviteRepository gameInviteRepository;
     private final UserProfileRepository userProfileRepository;
     private final GameService gameService;
+    private final GamePublisher gamePublisher;
+    private final SessionTokens sessionTokens;
     private final SimpMessagingTemplate messagingTemplate;
 
     public InviteService(GameInviteRepository gameInviteRepository,
                          UserProfileRepository userProfileRepository,
                          GameService gameService,
+                         GamePublisher gamePublisher,
+                         SessionTokens sessionTokens,
                          SimpMessagingTemplate messagingTemplate) {
         this.gameInviteRepository = gameInviteRepository;
         this.userProfileRepository = userProfileRepository;
         this.gameService = gameService;
+        this.gamePublisher = gamePublisher;
+        this.sessionTokens = sessionTokens;
         this.messagingTemplate = messagingTemplate;
     }
 
@@ -58,26 +64,30 @@ public class InviteService {
 
         UserProfile profile = ensureUserExists(userId);
         UserProfile fromProfile = ensureUserExists(invite.getFromTelegramId());
-        Game game = gameService.joinGame(invite.getGameId(), profile.getDisplayName());
-
-        String playerId = game.getPlayers().stream()
-                .filter(player -> player.getName().equalsIgnoreCase(profile.getDisplayName()))
-                .findFirst()
-                .map(Player::getId)
-                .orElse(null);
-
-        messagingTemplate.convertAndSend("/topic/game/" + game.getId(), game);
+        JoinGameResponse joined = gameService.withGameLock(invite.getGameId(), () -> {
+            Game game = gameService.joinGame(invite.getGameId(), profile.getDisplayName(), userId);
+            gamePublisher.publish(game);
+            String joinedId = game.getPlayers().stream()
+                    .filter(player -> player.getName().equalsIgnoreCase(profile.getDisplayName()))
+                    .findFirst()
+                    .map(Player::getId)
+                    .orElse(null);
+            return JoinGameResponse.of(game, joinedId, joinedId == null ? null : sessionTokens.issue(joinedId));
+        });
+        String playerId = joined.getPlayerId();
 
         UserEventPayload payload = buildInviteEvent("game_invite_accepted", invite, profile, fromProfile, profile);
-        payload.setGameId(game.getId());
+        payload.setGameId(joined.getGame().getId());
         payload.setPlayerId(playerId);
         sendUserEvent(invite.getFromTelegramId(), payload);
         sendUserEvent(invite.getToTelegramId(), payload);
 
         InviteAcceptResponse response = new InviteAcceptResponse();
         response.setInvite(invite);
-        response.setGame(game);
+        response.setGame(joined.getGame());
         response.setPlayerId(playerId);
+        response.setSessionToken(joined.getSessionToken());
+        response.setHand(joined.getHand());
         return response;
     }
 
@@ -3,9 +3,27 @@ package com.quick.wildjack.wildjack;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ответ create/join/rejoin: публичное состояние партии, своя рука и токен сессии (см. SessionTokens) —
+ * чужие руки, колода и telegramId игроков сюда не попадают
+ */
 @Data
 @AllArgsConstructor
 public class JoinGameResponse {
-    private Game game;
+    private GameView game;
     private String playerId;
+    private String sessionToken;
+    private List<Card> hand;
+
+    public static JoinGameResponse of(Game game, String playerId, String sessionToken) {
+        List<Card> hand = game.getPlayers().stream()
+                .filter(p -> p.getId().equals(playerId))
+                .findFirst()
+                .map(p -> p.getHand() == null ? new ArrayList<Card>() : new ArrayList<>(p.getHand()))
+                .orElseGet(ArrayList::new);
+        return new JoinGameResponse(GameView.of(game), playerId, sessionToken, hand);
+    }
 }
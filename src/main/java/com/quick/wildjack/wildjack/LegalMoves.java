@@ -0,0 +1,15 @@
+package com.quick.wildjack.wildjack;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LegalMoves {
+    private String gameId;
+    private String playerId;
+    private boolean yourTurn;
+    private List<CardMoves> cards;      // куда можно сыграть каждую карту руки
+    private boolean exchangeAvailable;  // можно обменять мёртвую карту
+    private boolean mustSkip;           // действий нет — остаётся только пропуск хода
+}
@@ -0,0 +1,58 @@
+package com.quick.wildjack.wildjack;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Дедлайны ходов в памяти процесса (wildjack.timeout.store=local): упорядоченное множество
+ * (дедлайн, id партии), на партию одна запись — новый дедлайн заменяет старый.
+ * Если дедлайн успел смениться после pollExpired, новая запись уже в очереди.
+ */
+final class LocalTurnDeadlines implements TurnDeadlines {
+
+    private record Entry(long deadline, String gameId) {
+    }
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::deadline).thenComparing(Entry::gameId);
+
+    private final ConcurrentSkipListSet<Entry> queue = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+
+    @Override
+    public void schedule(String gameId, long deadline) {
+        Long previous = deadlines.put(gameId, deadline);
+        if (previous != null && previous != deadline) {
+            queue.remove(new Entry(previous, gameId));
+        }
+        queue.add(new Entry(deadline, gameId));
+    }
+
+    @Override
+    public void cancel(String gameId) {
+        Long previous = deadlines.remove(gameId);
+        if (previous != null) {
+            queue.remove(new Entry(previous, gameId));
+        }
+    }
+
+    // O(log n) на каждую истёкшую партию, остальные не трогаются
+    @Override
+    public List<String> pollExpired(long now) {
+        List<String> expired = new ArrayList<>();
+        for (Entry entry : queue) {
+            if (entry.deadline() >= now) {
+                break;
+            }
+            if (queue.remove(entry)) {
+                deadlines.remove(entry.gameId(), entry.deadline());
+                expired.add(entry.gameId());
+            }
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,138 @@
+package com.quick.wildjack.wildjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Одно дерево Monte Carlo Tree Search (ISMCTS с детерминизацией) для хода бота.
+ * Каждый поток строит своё дерево от одного корня, результаты складываются в BotPlayer
+ * (root parallelization) — поэтому здесь нет синхронизации.
+ * Симуляции идут по переиспользуемому SimState, новые объекты создаются только при расширении дерева.
+ */
+final class MctsSearch {
+
+    private static final double EXPLORATION = 0.7;
+    // ограничение длины симуляции: все игроки могут долго пропускать ходы
+    private static final int MAX_PLIES = 400;
+    private static final int MAX_ACTIONS = 512;
+
+    private final SimState root;
+    private final int observer;
+    private final SimState state;
+    private final int[] actions = new int[MAX_ACTIONS];
+    private final Node rootNode = new Node(null, 0, -1);
+    private int iteration;
+
+    MctsSearch(SimState root, int observer) {
+        this.root = root;
+        this.observer = observer;
+        this.state = root.newWorkingCopy();
+    }
+
+    /**
+     * Итерации до дедлайна (System.nanoTime) или до лимита; возвращает узлы первого хода
+     */
+    List<Node> run(long deadlineNanos, int maxIterations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (iteration < maxIterations && System.nanoTime() < deadlineNanos) {
+            iteration++;
+            state.copyFrom(root);
+            state.determinize(observer, random);
+            Node leaf = selectAndExpand(random);
+            int plies = 0;
+            while (!state.finished && plies++ < MAX_PLIES) {
+                state.apply(state.randomAction(random));
+            }
+            for (Node node = leaf; node != null; node = node.parent) {
+                node.visits++;
+                node.reward += reward(node.moverTeam);
+            }
+        }
+        return rootNode.children;
+    }
+
+    int iterations() {
+        return iteration;
+    }
+
+    private Node selectAndExpand(ThreadLocalRandom random) {
+        Node node = rootNode;
+        while (!state.finished) {
+            int count = state.legalActions(actions);
+            // отмечаем доступные в этой детерминизации ветки, неопробованные действия сдвигаем в начало буфера
+            int untried = 0;
+            for (int i = 0; i < count; i++) {
+                Node child = node.child(actions[i]);
+                if (child == null) {
+                    actions[untried++] = actions[i];
+                } else {
+                    child.availability++;
+                    child.seenAt = iteration;
+                }
+            }
+            int mover = state.currentTeam();
+            if (untried > 0) {
+                int action = actions[random.nextInt(untried)];
+                Node child = new Node(node, action, mover);
+                child.availability = 1;
+                node.children.add(child);
+                state.apply(action);
+                return child;
+            }
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Node child : node.children) {
+                if (child.seenAt != iteration) {
+                    continue;
+                }
+                double score = child.reward / child.visits
+                        + EXPLORATION * Math.sqrt(Math.log(child.availability) / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            state.apply(best.action);
+            node = best;
+        }
+        return node;
+    }
+
+    /**
+     * Результат симуляции для команды, сделавшей ход в узел: победа 1, ничья или обрыв 0.5, поражение 0
+     */
+    private double reward(int team) {
+        if (!state.finished || state.winnerTeam < 0) {
+            return 0.5;
+        }
+        return state.winnerTeam == team ? 1.0 : 0.0;
+    }
+
+    static final class Node {
+        final Node parent;
+        final int action;
+        final int moverTeam;
+        final List<Node> children = new ArrayList<>();
+        int visits;
+        int availability;
+        int seenAt;
+        double reward;
+
+        Node(Node parent, int action, int moverTeam) {
+            this.parent = parent;
+            this.action = action;
+            this.moverTeam = moverTeam;
+        }
+
+        Node child(int action) {
+            for (int i = 0; i < children.size(); i++) {
+                Node child = children.get(i);
+                if (child.action == action) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
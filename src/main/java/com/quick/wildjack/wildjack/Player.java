@@ -9,5 +9,8 @@ public class Player {
     private String id;
     private String name;
     private String color;       // цвет фишки
+    private int team = -1;      // команда, назначается при старте игры
+    private boolean bot;        // встроенный бот (BotPlayer), в статистике не учитывается
+    private Long telegramId;    // пользователь Telegram, вошедший в партию; null — гость, статистика не ведётся
     private List<Card> hand;    // карты на руке
 }
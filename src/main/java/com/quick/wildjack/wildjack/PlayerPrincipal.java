@@ -0,0 +1,16 @@
+package com.quick.wildjack.wildjack;
+
+import java.security.Principal;
+
+/**
+ * Пользователь STOMP-сессии: id игрока из проверенного токена sessionToken при CONNECT (SessionTokens).
+ * По нему Spring находит сессию для /user/queue/... (рука, подсказки, ошибки).
+ * binaryWire — клиент запросил бинарный формат заголовком wire-format: binary (см. WireCodec).
+ */
+public record PlayerPrincipal(String playerId, boolean binaryWire) implements Principal {
+
+    @Override
+    public String getName() {
+        return playerId;
+    }
+}
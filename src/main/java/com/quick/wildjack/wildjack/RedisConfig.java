@@ -1,24 +1,28 @@
 package com.quick.wildjack.wildjack;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
+    /**
+     * Снимки партий — в бинарном формате GameRedisSerializer (старые JSON-записи читаются как раньше);
+     * wildjack.redis.codec=json возвращает запись в JSON
+     */
     @Bean
     public RedisTemplate<String, Game> gameRedisTemplate(RedisConnectionFactory connectionFactory,
-                                                         ObjectMapper objectMapper) {
+                                                         ObjectMapper objectMapper,
+                                                         @Value("${wildjack.redis.codec:binary}") String codec) {
         RedisTemplate<String, Game> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        Jackson2JsonRedisSerializer<Game> valueSerializer = new Jackson2JsonRedisSerializer<>(Game.class);
-        valueSerializer.setObjectMapper(objectMapper);
+        GameRedisSerializer valueSerializer = new GameRedisSerializer(objectMapper, "json".equalsIgnoreCase(codec));
 
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(valueSerializer);
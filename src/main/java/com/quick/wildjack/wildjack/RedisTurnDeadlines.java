@@ -0,0 +1,56 @@
+package com.quick.wildjack.wildjack;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * Дедлайны ходов в общем sorted set Redis (game:deadlines, score — turnDeadlineEpochMs)
+ * для нескольких инстансов за балансировщиком (wildjack.timeout.store=redis).
+ * Истёкшие партии забираются Lua-скриптом атомарно: запись не удаляется, а переносится
+ * на now + claim-lease-ms — другие инстансы её не видят, а если забравший инстанс упал,
+ * партия снова станет истёкшей после аренды. Закончившаяся партия удаляется из set (cancel),
+ * партия со сменившимся дедлайном переписывается (schedule).
+ */
+final class RedisTurnDeadlines implements TurnDeadlines {
+
+    static final String KEY = "game:deadlines";
+
+    // забранные id через запятую (в id партии запятой нет) — одна строка вместо сырого List
+    private static final RedisScript<String> CLAIM = new DefaultRedisScript<>("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[1], 'LIMIT', 0, tonumber(ARGV[3]))
+            for _, id in ipairs(due) do
+                redis.call('ZADD', KEYS[1], ARGV[2], id)
+            end
+            return table.concat(due, ',')
+            """, String.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long claimLeaseMs;
+    private final int batchSize;
+
+    RedisTurnDeadlines(StringRedisTemplate redisTemplate, long claimLeaseMs, int batchSize) {
+        this.redisTemplate = redisTemplate;
+        this.claimLeaseMs = claimLeaseMs;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void schedule(String gameId, long deadlineEpochMs) {
+        redisTemplate.opsForZSet().add(KEY, gameId, deadlineEpochMs);
+    }
+
+    @Override
+    public void cancel(String gameId) {
+        redisTemplate.opsForZSet().remove(KEY, gameId);
+    }
+
+    @Override
+    public List<String> pollExpired(long now) {
+        String claimed = redisTemplate.execute(CLAIM, List.of(KEY),
+                String.valueOf(now), String.valueOf(now + claimLeaseMs), String.valueOf(batchSize));
+        return claimed == null || claimed.isEmpty() ? List.of() : List.of(claimed.split(","));
+    }
+}
@@ -0,0 +1,99 @@
+package com.quick.wildjack.wildjack;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Токен сессии игрока: "playerId.подпись", подпись — HMAC-SHA256 id игрока секретом wildjack.session.secret.
+ * id игрока публичный (он есть в рассылке партии как владелец клеток), поэтому сессию STOMP, rejoin и подсказки
+ * привязывают к токену: его получает только сам игрок в ответе create/join/rejoin. Проверка не ходит в Redis,
+ * так что CONNECT принимает любой инстанс; в режиме wildjack.ownership.mode=redis секрет у всех инстансов общий.
+ */
+@Component
+public class SessionTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String NODE_PREFIX = "node:";
+
+    private final byte[] secret;
+
+    public SessionTokens(@Value("${wildjack.session.secret:}") String secret,
+                         @Value("${wildjack.ownership.mode:local}") String ownershipMode) {
+        if (secret.isBlank()) {
+            if (ownershipMode.equals("redis")) {
+                throw new RuntimeException("wildjack.session.secret is required in redis ownership mode");
+            }
+            // один инстанс: токены живут, пока жив процесс
+            this.secret = new byte[32];
+            new SecureRandom().nextBytes(this.secret);
+        } else {
+            this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    public String issue(String playerId) {
+        return playerId + "." + sign(playerId);
+    }
+
+    /**
+     * id игрока из токена; null, если токен не выдан этим сервером
+     */
+    public String playerId(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.lastIndexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String playerId = token.substring(0, dot);
+        byte[] expected = sign(playerId).getBytes(StandardCharsets.UTF_8);
+        byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, actual) ? playerId : null;
+    }
+
+    /**
+     * id игрока из токена или ошибка
+     */
+    public String requirePlayerId(String token) {
+        String playerId = playerId(token);
+        if (playerId == null) {
+            throw new RuntimeException("Invalid session token");
+        }
+        return playerId;
+    }
+
+    /**
+     * Подпись запроса между инстансами по партии (пересылка к владельцу): тем же общим секретом,
+     * клиенту не выдаётся. Префикс отделяет её от токенов игроков — id игрока всегда UUID
+     */
+    public String signNodeRequest(String gameId) {
+        return sign(NODE_PREFIX + gameId);
+    }
+
+    public boolean isNodeRequest(String gameId, String signature) {
+        if (gameId == null || signature == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(signNodeRequest(gameId).getBytes(StandardCharsets.UTF_8),
+                signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String sign(String playerId) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            byte[] hash = mac.doFinal(playerId.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to sign session token", e);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.quick.wildjack.wildjack;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Компактная копия партии для симуляций бота: битборд, руки и колода как массивы id карт.
+ * Правила те же, что в GameService (ход, обмен мёртвой карты, пропуск, победа, ничья),
+ * но без Cell[][] и без аллокаций на шаг — экземпляр переиспользуется через copyFrom.
+ */
+final class SimState {
+
+    static final int MAX_PLAYERS = 6;
+    static final int MAX_HAND = 8;
+    static final int HAND_SIZE = 5;
+    static final int SEQUENCES_TO_WIN = 2;
+
+    // действие: тип в старших битах, id карты и клетка в младших
+    static final int PLAY = 0;
+    static final int EXCHANGE = 1;
+    static final int SKIP = 2 << 16;
+
+    private static final boolean[] TWO_EYED = new boolean[Card.COUNT];
+    private static final boolean[] ONE_EYED = new boolean[Card.COUNT];
+
+    static {
+        for (int id = 0; id < Card.COUNT; id++) {
+            TWO_EYED[id] = Card.of(id).twoEyedJack();
+            ONE_EYED[id] = Card.of(id).oneEyedJack();
+        }
+    }
+
+    private final byte[] cellCards;
+    private final int[][] cardCells;
+    final BitBoard board;
+    int playerCount;
+    final byte[] teamOf = new byte[MAX_PLAYERS];
+    final byte[][] hands = new byte[MAX_PLAYERS][MAX_HAND];
+    final int[] handSizes = new int[MAX_PLAYERS];
+    final byte[] deck = new byte[Card.COUNT * 2];
+    int deckSize;                   // карты берутся с конца: deck[deckSize - 1]
+    final int[] sequences = new int[BitBoard.MAX_TEAMS];
+    int current;
+    boolean exchangeUsed;
+    boolean finished;
+    int winnerTeam = -1;            // -1 — ничья или игра не закончена
+
+    SimState(byte[] cellCards, int[][] cardCells) {
+        this.cellCards = cellCards;
+        this.cardCells = cardCells;
+        this.board = new BitBoard(cellCards);
+    }
+
+    /**
+     * Новый экземпляр с теми же таблицами раскладки — рабочая копия для потока поиска
+     */
+    SimState newWorkingCopy() {
+        return new SimState(cellCards, cardCells);
+    }
+
+    /**
+     * Снимок настоящей партии (вызывать в полосе игры)
+     */
+    static SimState of(Game game, BitBoard bitBoard, boolean exchangeUsed, byte[] cellCards, int[][] cardCells) {
+        SimState state = new SimState(cellCards, cardCells);
+        state.board.copyFrom(bitBoard);
+        List<Player> players = game.getPlayers();
+        state.playerCount = players.size();
+        for (int p = 0; p < players.size(); p++) {
+            Player player = players.get(p);
+            state.teamOf[p] = (byte) player.getTeam();
+            List<Card> hand = player.getHand();
+            int size = hand == null ? 0 : Math.min(hand.size(), MAX_HAND);
+            for (int i = 0; i < size; i++) {
+                state.hands[p][i] = hand.get(i).getId();
+            }
+            state.handSizes[p] = size;
+        }
+        // колода в Deck раздаётся с начала, здесь — с конца
+        byte[] remaining = game.getDeck().toBytes();
+        for (int i = 0; i < remaining.length; i++) {
+            state.deck[remaining.length - 1 - i] = remaining[i];
+        }
+        state.deckSize = remaining.length;
+        Map<String, Integer> sequencesByKey = game.getSequencesByKey();
+        if (sequencesByKey != null) {
+            for (int team = 0; team < BitBoard.MAX_TEAMS; team++) {
+                state.sequences[team] = sequencesByKey.getOrDefault("TEAM_" + team, 0);
+            }
+        }
+        state.current = game.getCurrentPlayerIndex();
+        state.exchangeUsed = exchangeUsed;
+        return state;
+    }
+
+    void copyFrom(SimState other) {
+        board.copyFrom(other.board);
+        playerCount = other.playerCount;
+        System.arraycopy(other.teamOf, 0, teamOf, 0, MAX_PLAYERS);
+        for (int p = 0; p < other.playerCount; p++) {
+            System.arraycopy(other.hands[p], 0, hands[p], 0, MAX_HAND);
+        }
+        System.arraycopy(other.handSizes, 0, handSizes, 0, MAX_PLAYERS);
+        System.arraycopy(other.deck, 0, deck, 0, other.deckSize);
+        deckSize = other.deckSize;
+        System.arraycopy(other.sequences, 0, sequences, 0, BitBoard.MAX_TEAMS);
+        current = other.current;
+        exchangeUsed = other.exchangeUsed;
+        finished = other.finished;
+        winnerTeam = other.winnerTeam;
+    }
+
+    /**
+     * Детерминизация: бот не видит чужие руки и порядок колоды, поэтому карты соперников
+     * и колоды перемешиваются между собой. Рука игрока observer остаётся как есть.
+     */
+    void determinize(int observer, ThreadLocalRandom random) {
+        // всё неизвестное складывается в массив колоды, перемешивается и раздаётся обратно
+        int n = deckSize;
+        for (int p = 0; p < playerCount; p++) {
+            if (p == observer) {
+                continue;
+            }
+            for (int i = 0; i < handSizes[p]; i++) {
+                deck[n++] = hands[p][i];
+            }
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte temp = deck[i];
+            deck[i] = deck[j];
+            deck[j] = temp;
+        }
+        for (int p = 0; p < playerCount; p++) {
+            if (p == observer) {
+                continue;
+            }
+            for (int i = 0; i < handSizes[p]; i++) {
+                hands[p][i] = deck[--n];
+            }
+        }
+    }
+
+    int handIndexOf(int player, int card) {
+        for (int i = 0; i < handSizes[player]; i++) {
+            if (hands[player][i] == card) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int currentTeam() {
+        return teamOf[current];
+    }
+
+    /**
+     * Все допустимые действия текущего игрока в out; возвращает их количество.
+     * Повторы одинаковых карт на руке не дублируются. Если ходить нечем — единственное действие SKIP.
+     */
+    int legalActions(int[] out) {
+        int team = teamOf[current];
+        byte[] hand = hands[current];
+        int size = handSizes[current];
+        int n = 0;
+        long deadCards = 0;
+        for (int i = 0; i < size; i++) {
+            int card = hand[i];
+            if (seenBefore(hand, i, card)) {
+                continue;
+            }
+            int before = n;
+            if (TWO_EYED[card]) {
+                n = addCells(out, n, card, board.freeCellsLo(), 0);
+                n = addCells(out, n, card, board.freeCellsHi(), 64);
+            } else if (ONE_EYED[card]) {
+                n = addCells(out, n, card, board.removableChipsLo(team), 0);
+                n = addCells(out, n, card, board.removableChipsHi(team), 64);
+            } else {
+                for (int cell : cardCells[card]) {
+                    if (board.isFree(cell)) {
+                        out[n++] = play(card, cell);
+                    }
+                }
+            }
+            if (n == before) {
+                deadCards |= 1L << card;
+            }
+        }
+        if (!exchangeUsed && deckSize > 0) {
+            while (deadCards != 0) {
+                int card = Long.numberOfTrailingZeros(deadCards);
+                deadCards &= deadCards - 1;
+                out[n++] = (EXCHANGE << 16) | (card << 8);
+            }
+        }
+        if (n == 0) {
+            out[n++] = SKIP;
+        }
+        return n;
+    }
+
+    /**
+     * Случайное допустимое действие без заполнения буфера: сначала случайная карта,
+     * потом случайная цель. Мёртвая карта меняется, если можно, иначе берётся следующая.
+     */
+    int randomAction(ThreadLocalRandom random) {
+        int team = teamOf[current];
+        byte[] hand = hands[current];
+        int size = handSizes[current];
+        int start = size == 0 ? 0 : random.nextInt(size);
+        int exchange = -1;
+        for (int k = 0; k < size; k++) {
+            int card = hand[(start + k) % size];
+            int cell;
+            if (TWO_EYED[card]) {
+                cell = randomCell(board.freeCellsLo(), board.freeCellsHi(), random);
+            } else if (ONE_EYED[card]) {
+                cell = randomCell(board.removableChipsLo(team), board.removableChipsHi(team), random);
+            } else {
+                cell = randomMatchingCell(card, random);
+            }
+            if (cell >= 0) {
+                return play(card, cell);
+            }
+            if (exchange < 0 && !exchangeUsed && deckSize > 0) {
+                exchange = (EXCHANGE << 16) | (card << 8);
+            }
+        }
+        return exchange >= 0 ? exchange : SKIP;
+    }
+
+    void apply(int action) {
+        int type = action >>> 16;
+        int card = (action >>> 8) & 0xFF;
+        int cell = action & 0xFF;
+        if (action == SKIP) {
+            nextTurn();
+            return;
+        }
+        if (type == EXCHANGE) {
+            removeAll(card);
+            refill();
+            exchangeUsed = true;
+            if (deckSize == 0) {
+                finished = true;
+            }
+            return;
+        }
+        int team = teamOf[current];
+        int x = cell % BitBoard.SIZE;
+        int y = cell / BitBoard.SIZE;
+        if (ONE_EYED[card]) {
+            board.remove(x, y);
+        } else {
+            board.place(x, y, team);
+        }
+        removeOne(card);
+        refill();
+        sequences[team] += board.lockNewSequences(team, x, y, null);
+        if (sequences[team] >= SEQUENCES_TO_WIN) {
+            finished = true;
+            winnerTeam = team;
+            return;
+        }
+        if (deckSize == 0) {
+            finished = true;
+            return;
+        }
+        nextTurn();
+    }
+
+    static int play(int card, int cell) {
+        return (PLAY << 16) | (card << 8) | cell;
+    }
+
+    static int cardOf(int action) {
+        return (action >>> 8) & 0xFF;
+    }
+
+    static int cellOf(int action) {
+        return action & 0xFF;
+    }
+
+    static boolean isExchange(int action) {
+        return action >>> 16 == EXCHANGE;
+    }
+
+    private void nextTurn() {
+        current = (current + 1) % playerCount;
+        exchangeUsed = false;
+    }
+
+    private void refill() {
+        byte[] hand = hands[current];
+        while (handSizes[current] < HAND_SIZE && deckSize > 0) {
+            hand[handSizes[current]++] = deck[--deckSize];
+        }
+    }
+
+    private void removeOne(int card) {
+        byte[] hand = hands[current];
+        int size = handSizes[current];
+        for (int i = 0; i < size; i++) {
+            if (hand[i] == card) {
+                hand[i] = hand[size - 1];
+                handSizes[current] = size - 1;
+                return;
+            }
+        }
+    }
+
+    private void removeAll(int card) {
+        byte[] hand = hands[current];
+        int kept = 0;
+        for (int i = 0; i < handSizes[current]; i++) {
+            if (hand[i] != card) {
+                hand[kept++] = hand[i];
+            }
+        }
+        handSizes[current] = kept;
+    }
+
+    private int randomMatchingCell(int card, ThreadLocalRandom random) {
+        int[] cells = cardCells[card];
+        if (cells.length == 0) {
+            return -1;
+        }
+        int first = random.nextInt(cells.length);
+        for (int k = 0; k < cells.length; k++) {
+            int cell = cells[(first + k) % cells.length];
+            if (board.isFree(cell)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private static int randomCell(long lo, long hi, ThreadLocalRandom random) {
+        int total = Long.bitCount(lo) + Long.bitCount(hi);
+        if (total == 0) {
+            return -1;
+        }
+        int k = random.nextInt(total);
+        int inLo = Long.bitCount(lo);
+        if (k >= inLo) {
+            return 64 + nthBit(hi, k - inLo);
+        }
+        return nthBit(lo, k);
+    }
+
+    private static int nthBit(long mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    private static int addCells(int[] out, int n, int card, long mask, int offset) {
+        while (mask != 0) {
+            out[n++] = play(card, offset + Long.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
+        return n;
+    }
+
+    private static boolean seenBefore(byte[] hand, int index, int card) {
+        for (int i = 0; i < index; i++) {
+            if (hand[i] == card) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
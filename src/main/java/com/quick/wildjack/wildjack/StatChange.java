@@ -0,0 +1,7 @@
+package com.quick.wildjack.wildjack;
+
+/**
+ * Изменение статистики игрока по итогам партии — применяется GameFinalizer
+ */
+public record StatChange(long telegramId, int wins, int losses, int ratingDelta) {
+}
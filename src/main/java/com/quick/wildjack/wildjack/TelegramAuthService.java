@@ -268,7 +268,7 @@ public class TelegramAuthService {
                                    boolean fresh) {
     }
 
-    private record ValidationLogDetails(
+    record ValidationLogDetails(
             String keysBefore,
             String keysAfter,
             boolean hasSignature,
@@ -0,0 +1,21 @@
+package com.quick.wildjack.wildjack;
+
+import java.util.List;
+
+/**
+ * Очередь дедлайнов ходов: таймер забирает только истёкшие партии и не перебирает все активные.
+ * schedule/cancel вызываются в полосе игры, pollExpired — из таймера; GameService перепроверяет
+ * каждую выданную партию под блокировкой и, если дедлайн сменился, ставит её обратно.
+ * Реализации: LocalTurnDeadlines (один инстанс) и RedisTurnDeadlines (общая очередь для нескольких инстансов).
+ */
+public interface TurnDeadlines {
+
+    void schedule(String gameId, long deadlineEpochMs);
+
+    void cancel(String gameId);
+
+    /**
+     * Забрать партии с дедлайном раньше now; каждую выдаёт только одному вызывающему
+     */
+    List<String> pollExpired(long now);
+}
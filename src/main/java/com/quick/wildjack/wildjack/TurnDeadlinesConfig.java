@@ -0,0 +1,28 @@
+package com.quick.wildjack.wildjack;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Где хранятся дедлайны ходов: local (по умолчанию) — в памяти инстанса,
+ * redis — общий sorted set, таймауты партий любого инстанса обрабатывает ровно один из них
+ */
+@Configuration
+public class TurnDeadlinesConfig {
+
+    @Bean
+    public TurnDeadlines turnDeadlines(StringRedisTemplate redisTemplate,
+                                       @Value("${wildjack.timeout.store:local}") String store,
+                                       @Value("${wildjack.timeout.claim-lease-ms:10000}") long claimLeaseMs,
+                                       @Value("${wildjack.timeout.batch-size:500}") int batchSize) {
+        if (store.equals("local")) {
+            return new LocalTurnDeadlines();
+        }
+        if (store.equals("redis")) {
+            return new RedisTurnDeadlines(redisTemplate, claimLeaseMs, Math.max(1, batchSize));
+        }
+        throw new RuntimeException("Unknown wildjack.timeout.store: " + store);
+    }
+}
@@ -1,17 +1,30 @@
 package com.quick.wildjack.wildjack;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final SessionTokens sessionTokens;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // бинарные кадры (wire-format: binary) SockJS не передаёт — такие клиенты подключаются
+        // обычным WebSocket к /ws/websocket
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*") // <--- чтобы WebSocket работал без ошибок CORS
                 .withSockJS();
@@ -19,7 +32,55 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        // /topic — общее состояние партии, /queue — личное (через /user/queue/...)
+        registry.enableSimpleBroker("/topic", "/queue");
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(playerSessionInterceptor());
+    }
+
+    ChannelInterceptor playerSessionInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                // CONNECT с заголовком sessionToken (из ответа create/join/rejoin) привязывает сессию к игроку;
+                // без него сессия только читает /topic, неверный токен — отказ в подключении
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
+                    String token = accessor.getFirstNativeHeader("sessionToken");
+                    if (token != null && !token.isBlank()) {
+                        String playerId = sessionTokens.requirePlayerId(token);
+                        boolean binary = "binary".equalsIgnoreCase(accessor.getFirstNativeHeader("wire-format"));
+                        accessor.setUser(new PlayerPrincipal(playerId, binary));
+                    }
+                }
+                if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+                    checkSubscription(accessor);
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Личные очереди только через /user/queue/...: Spring сам подставляет сессию подписчика.
+     * Прямая подписка на разрешённое имя (/queue/hand-user{sessionId}) читала бы чужую руку —
+     * id сессии SockJS виден в URL. /user/queue без токена тоже закрыт: своей очереди у такой сессии нет
+     */
+    private static void checkSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+        if (destination.startsWith("/queue")) {
+            throw new RuntimeException("Subscribe to /user/queue instead of " + destination);
+        }
+        if (destination.startsWith("/user/queue") && !(accessor.getUser() instanceof PlayerPrincipal)) {
+            throw new RuntimeException("Session token is required for " + destination);
+        }
     }
 }
@@ -1,60 +1,66 @@
 package com.quick.wildjack.wildjack;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 @Controller
 @RequiredArgsConstructor
 public class WebSocketController {
 
     private final GameService gameService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final GamePublisher gamePublisher;
+    private final GameOwnership ownership;
+    private final GameForwarder forwarder;
 
     /**
      * Игрок делает ход через WebSocket
      * Клиент шлёт MoveMessage на /app/move
      */
     @MessageMapping("/move")
-    public void handleMove(MoveMessage message) {
+    public void handleMove(MoveMessage message, Principal principal) {
         try {
-            String action = message.getAction();
-            if (action == null || action.isBlank()) {
-                action = "MOVE";
+            // ходит только сессия, подключённая с токеном, и только за своего игрока
+            if (principal == null) {
+                throw new RuntimeException("Session token is required");
             }
-
-            Game game;
-            if ("EXCHANGE".equalsIgnoreCase(action)) {
-                game = gameService.exchangeDeadCard(
-                        message.getGameId(),
-                        message.getPlayerId(),
-                        message.getCard()
-                );
-            } else if ("SKIP".equalsIgnoreCase(action)) {
-                game = gameService.skipTurnIfStuck(
-                        message.getGameId(),
-                        message.getPlayerId()
-                );
-            } else if ("MOVE".equalsIgnoreCase(action)) {
-                game = gameService.makeMove(
-                        message.getGameId(),
-                        message.getPlayerId(),
-                        message.getCard(),
-                        message.getCardIndex(),
-                        message.getX(),
-                        message.getY()
-                );
-            } else {
-                throw new RuntimeException("Unknown action: " + action);
+            message.setPlayerId(principal.getName());
+            // партией владеет другой инстанс — ход применяет он, обновление придёт через GameFanout
+            String owner = ownership.ownerOf(message.getGameId());
+            if (owner != null) {
+                forwarder.forwardAction(owner, message);
+                return;
             }
+            // ход и рассылка — в полосе игры, чтобы подписчики получили согласованное состояние
+            gameService.withGameLock(message.getGameId(), () -> {
+                Game game = gameService.applyAction(message);
 
-            // Отправляем обновление доски всем игрокам игры
-            messagingTemplate.convertAndSend("/topic/game/" + game.getId(), game);
+                // Отправляем обновление доски всем игрокам игры и подсказки следующему
+                gamePublisher.publish(game);
+                return game;
+            });
 
         } catch (RuntimeException e) {
-            // В случае ошибки можно отправить её игроку
-            messagingTemplate.convertAndSend("/topic/game/" + message.getPlayerId() + "/error", e.getMessage());
+            // В случае ошибки можно отправить её игроку; у сессии без токена личной очереди нет
+            if (principal != null) {
+                gamePublisher.publishError(principal.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * MoveMessage не разобрался (например, неизвестная карта в Card.of) — до handleMove дело не дошло,
+     * поэтому ошибку отправляем игроку здесь
+     */
+    @MessageExceptionHandler(MessageConversionException.class)
+    public void handleUnreadableMove(MessageConversionException e, Principal principal) {
+        if (principal != null) {
+            gamePublisher.publishError(principal.getName(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
         }
     }
 }
@@ -0,0 +1,181 @@
+package com.quick.wildjack.wildjack;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компактный бинарный формат сообщений для клиентов, которые его запросили
+ * (STOMP-заголовок wire-format: binary при CONNECT, для REST — Accept: application/x-wildjack).
+ *
+ * Кадр начинается с байта типа (VIEW, DELTA, HAND, HINTS, ERROR). Числа — big-endian,
+ * строки — длина (2 байта, 0xFFFF — null) и UTF-8, карты — id (масть * 13 + ранг), клетки — индекс y * 10 + x.
+ * Игроки внутри кадра — номером в списке игроков партии, доска — 100 байт:
+ * номер владельца + 1 (0 — свободно), старший бит — клетка в секвенции. Раскладка карт на доске фиксирована
+ * и клиенту известна, команда владельца берётся из списка игроков.
+ */
+final class WireCodec {
+
+    static final String MEDIA_TYPE = "application/x-wildjack";
+
+    static final int VIEW = 1;
+    static final int DELTA = 2;
+    static final int HAND = 3;
+    static final int HINTS = 4;
+    static final int ERROR = 5;
+
+    private static final int NONE = 0xFF;
+
+    private WireCodec() {
+    }
+
+    /**
+     * Полное публичное состояние (GameView)
+     */
+    static byte[] encodeView(GameView view) {
+        List<Player> players = view.getPlayers();
+        Map<String, Integer> indexes = indexes(players);
+        ByteWriter out = new ByteWriter(256);
+        out.put(VIEW);
+        out.putString(view.getId());
+        out.putLong(view.getVersion());
+        out.put(view.getMaxPlayers());
+        out.put(view.isTeamGame() ? 1 : 0);
+        out.put(players.size());
+        for (Player player : players) {
+            out.putString(player.getId());
+            out.putString(player.getName());
+            out.putString(player.getColor());
+            out.put(player.getTeam());
+            out.put(player.isBot() ? 1 : 0);
+            out.put(view.getHandSizes().getOrDefault(player.getId(), 0));
+        }
+        putTurn(out, indexes, view.getStatus(), view.getResult(), view.getWinnerKey(), view.getCurrentPlayerIndex(),
+                view.getTurnDeadlineEpochMs(), view.getDeckSize(), view.getSequencesByKey(), view.getLastMove());
+        Cell[][] board = view.getBoard();
+        for (int y = 0; y < BitBoard.SIZE; y++) {
+            for (int x = 0; x < BitBoard.SIZE; x++) {
+                Cell cell = board[y][x];
+                out.put(owner(indexes, cell.getOwnerId()) | (cell.isSequence() ? 0x80 : 0));
+            }
+        }
+        return out.toBytes();
+    }
+
+    /**
+     * Дельта; players — список игроков партии, по нему кодируются владельцы клеток
+     */
+    static byte[] encodeDelta(GameDelta delta, List<Player> players) {
+        Map<String, Integer> indexes = indexes(players);
+        ByteWriter out = new ByteWriter(64);
+        out.put(DELTA);
+        out.putString(delta.getGameId());
+        out.putLong(delta.getBaseVersion());
+        out.putLong(delta.getVersion());
+        putTurn(out, indexes, delta.getStatus(), delta.getResult(), delta.getWinnerKey(), delta.getCurrentPlayerIndex(),
+                delta.getTurnDeadlineEpochMs(), delta.getDeckSize(), delta.getSequencesByKey(), delta.getLastMove());
+        out.put(delta.getCells().size());
+        for (CellChange change : delta.getCells()) {
+            out.put(BitBoard.index(change.getX(), change.getY()));
+            out.put(owner(indexes, change.getOwnerId()) | (change.isSequence() ? 0x80 : 0));
+        }
+        out.put(delta.getHandSizes().size());
+        for (Map.Entry<String, Integer> entry : delta.getHandSizes().entrySet()) {
+            out.put(indexes.getOrDefault(entry.getKey(), NONE));
+            out.put(entry.getValue());
+        }
+        return out.toBytes();
+    }
+
+    static byte[] encodeHand(HandUpdate update) {
+        List<Card> hand = update.getHand();
+        int size = hand == null ? 0 : hand.size();
+        ByteWriter out = new ByteWriter(16 + size);
+        out.put(HAND);
+        out.putString(update.getGameId());
+        out.putLong(update.getVersion());
+        out.put(size);
+        for (int i = 0; i < size; i++) {
+            out.put(hand.get(i).getId());
+        }
+        return out.toBytes();
+    }
+
+    /**
+     * Подсказки: флаги (1 — твой ход, 2 — можно обменять, 4 — только пропуск), затем по каждой карте
+     * индекс на руке, id, признак мёртвой карты и список клеток
+     */
+    static byte[] encodeHints(LegalMoves moves) {
+        ByteWriter out = new ByteWriter(128);
+        out.put(HINTS);
+        out.putString(moves.getGameId());
+        out.put((moves.isYourTurn() ? 1 : 0) | (moves.isExchangeAvailable() ? 2 : 0) | (moves.isMustSkip() ? 4 : 0));
+        List<CardMoves> cards = moves.getCards();
+        out.put(cards.size());
+        for (CardMoves cardMoves : cards) {
+            out.put(cardMoves.getCardIndex());
+            out.put(cardMoves.getCard().getId());
+            out.put(cardMoves.isDead() ? 1 : 0);
+            out.put(cardMoves.getTargets().size());
+            for (int[] target : cardMoves.getTargets()) {
+                out.put(BitBoard.index(target[0], target[1]));
+            }
+        }
+        return out.toBytes();
+    }
+
+    static byte[] encodeError(String message) {
+        ByteWriter out = new ByteWriter(8 + (message == null ? 0 : message.length() * 2));
+        out.put(ERROR);
+        out.putString(message);
+        return out.toBytes();
+    }
+
+    /**
+     * Общая часть VIEW и DELTA: статус, результат, ход, дедлайн, колода, секвенции и последний ход
+     */
+    private static void putTurn(ByteWriter out, Map<String, Integer> indexes, GameStatus status, GameResult result,
+                                String winnerKey, int currentPlayerIndex, long turnDeadlineEpochMs, int deckSize,
+                                Map<String, Integer> sequencesByKey, LastMove lastMove) {
+        out.put(status.ordinal());
+        out.put(result == null ? NONE : result.ordinal());
+        out.putString(winnerKey);
+        out.put(currentPlayerIndex);
+        out.putLong(turnDeadlineEpochMs);
+        out.put(deckSize);
+        if (sequencesByKey == null) {
+            out.put(0);
+        } else {
+            out.put(sequencesByKey.size());
+            for (Map.Entry<String, Integer> entry : sequencesByKey.entrySet()) {
+                out.putString(entry.getKey());
+                out.put(entry.getValue());
+            }
+        }
+        if (lastMove == null || lastMove.getCard() == null) {
+            out.put(0);
+            return;
+        }
+        out.put(1);
+        out.put(BitBoard.index(lastMove.getX(), lastMove.getY()));
+        out.put(indexes.getOrDefault(lastMove.getPlayerId(), NONE));
+        out.put(lastMove.getCard().getId());
+        out.put((lastMove.isJackRemove() ? 1 : 0) | (lastMove.isJackWild() ? 2 : 0));
+    }
+
+    private static Map<String, Integer> indexes(List<Player> players) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < players.size(); i++) {
+            indexes.put(players.get(i).getId(), i);
+        }
+        return indexes;
+    }
+
+    private static int owner(Map<String, Integer> indexes, String ownerId) {
+        if (ownerId == null) {
+            return 0;
+        }
+        Integer index = indexes.get(ownerId);
+        return index == null ? 0 : index + 1;
+    }
+}
@@ -0,0 +1,223 @@
+package com.quick.wildjack;
+
+import ch.qos.logback.classic.Level;
+import com.quick.wildjack.wildjack.Card;
+import com.quick.wildjack.wildjack.CardMoves;
+import com.quick.wildjack.wildjack.Cell;
+import com.quick.wildjack.wildjack.Game;
+import com.quick.wildjack.wildjack.GameService;
+import com.quick.wildjack.wildjack.GameStatus;
+import com.quick.wildjack.wildjack.LegalMoves;
+import com.quick.wildjack.wildjack.Player;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless-прогон полных партий через настоящие правила GameService (Redis и JPA выключены — null).
+ * Макро-бенчмарк движка: games/sec, moves/sec и аллокации на ход, партии параллельно на всех ядрах.
+ *
+ * Запуск: mvn -Pselfplay test-compile exec:java -Dselfplay.args="--games=20000 --players=2 --policy=greedy"
+ */
+public class SelfPlaySimulation {
+
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    private final GameService gameService;
+    private final String policy;
+    private final int players;
+
+    SelfPlaySimulation(GameService gameService, String policy, int players) {
+        this.gameService = gameService;
+        this.policy = policy;
+        this.players = players;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 10_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int players = 2;
+        String policy = "random";
+        int warmup = 1_000;
+        for (String arg : args) {
+            String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+            if (parts.length != 2) {
+                continue;
+            }
+            switch (parts[0]) {
+                case "games" -> games = Integer.parseInt(parts[1]);
+                case "threads" -> threads = Integer.parseInt(parts[1]);
+                case "players" -> players = Integer.parseInt(parts[1]);
+                case "policy" -> policy = parts[1];
+                case "warmup" -> warmup = Integer.parseInt(parts[1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (!policy.equals("random") && !policy.equals("greedy")) {
+            throw new IllegalArgumentException("Policy must be random or greedy");
+        }
+
+        // лог руки на каждый ход съел бы весь прогон
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(GameService.class)).setLevel(Level.WARN);
+
+        SelfPlaySimulation simulation = new SelfPlaySimulation(
+                new GameService(null, null, null, null, null, null), policy, players);
+
+        System.out.printf("warmup: %d games%n", warmup);
+        simulation.run(warmup, threads);
+        System.out.printf("run: %d games, %d players, policy=%s, threads=%d%n", games, players, policy, threads);
+        Result result = simulation.run(games, threads);
+        double seconds = result.nanos / 1e9;
+        System.out.printf("games/sec:       %.1f%n", result.games / seconds);
+        System.out.printf("moves/sec:       %.1f%n", result.moves / seconds);
+        System.out.printf("moves/game:      %.1f%n", (double) result.moves / result.games);
+        System.out.printf("bytes/move:      %.0f%n", (double) result.allocatedBytes / result.moves);
+        System.out.printf("wins/draws:      %d/%d%n", result.wins, result.games - result.wins);
+    }
+
+    Result run(int games, int threads) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(games);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<Result>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    Result result = new Result();
+                    long allocatedBefore = allocatedBytes();
+                    while (remaining.getAndDecrement() > 0) {
+                        playGame(result);
+                    }
+                    result.allocatedBytes = allocatedBytes() - allocatedBefore;
+                    return result;
+                }));
+            }
+            Result total = new Result();
+            for (Future<Result> worker : workers) {
+                Result result = worker.get();
+                total.games += result.games;
+                total.moves += result.moves;
+                total.wins += result.wins;
+                total.allocatedBytes += result.allocatedBytes;
+            }
+            total.nanos = System.nanoTime() - start;
+            return total;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void playGame(Result result) {
+        // два игрока — через лобби (createGame + joinGame), больше — сразу полным составом
+        List<String> names = new ArrayList<>();
+        int initial = players == 2 ? 1 : players;
+        for (int i = 0; i < initial; i++) {
+            names.add("P" + i);
+        }
+        Game game = gameService.createGame(names);
+        for (int i = initial; i < players; i++) {
+            game = gameService.joinGame(game.getId(), "P" + i);
+        }
+        if (game.getStatus() != GameStatus.STARTED) {
+            throw new IllegalStateException("Game did not start: " + game.getId());
+        }
+
+        while (game.getStatus() == GameStatus.STARTED) {
+            Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+            LegalMoves moves = gameService.getLegalMoves(game.getId(), current.getId());
+            game = play(game, current, moves);
+            result.moves++;
+        }
+        result.games++;
+        if (game.getWinnerKey() != null) {
+            result.wins++;
+        }
+    }
+
+    private Game play(Game game, Player current, LegalMoves moves) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CardMoves bestCard = null;
+        int[] bestTarget = null;
+        int bestScore = Integer.MIN_VALUE;
+        int options = 0;
+        for (CardMoves cardMoves : moves.getCards()) {
+            for (int[] target : cardMoves.getTargets()) {
+                int score = policy.equals("greedy") ? score(game, current, cardMoves.getCard(), target) : 0;
+                // равные варианты выбираются равновероятно (reservoir sampling)
+                if (score > bestScore) {
+                    bestScore = score;
+                    options = 0;
+                }
+                if (score == bestScore && random.nextInt(++options) == 0) {
+                    bestCard = cardMoves;
+                    bestTarget = target;
+                }
+            }
+        }
+        if (bestCard != null) {
+            return gameService.makeMove(game.getId(), current.getId(), bestCard.getCard(),
+                    bestCard.getCardIndex(), bestTarget[0], bestTarget[1]);
+        }
+        if (moves.isExchangeAvailable()) {
+            for (CardMoves cardMoves : moves.getCards()) {
+                if (cardMoves.isDead()) {
+                    return gameService.exchangeDeadCard(game.getId(), current.getId(), cardMoves.getCard());
+                }
+            }
+        }
+        return gameService.skipTurnIfStuck(game.getId(), current.getId());
+    }
+
+    /**
+     * Жадная оценка: самая длинная линия своих фишек через клетку, для снятия фишки — линия соперника
+     */
+    private static int score(Game game, Player player, Card card, int[] target) {
+        Cell[][] board = game.getBoard();
+        int x = target[0];
+        int y = target[1];
+        boolean removal = board[y][x].getOwnerId() != null;
+        int team = removal ? board[y][x].getTeam() : player.getTeam();
+        int best = 0;
+        for (int[] dir : DIRECTIONS) {
+            int line = 1 + countLine(board, team, x, y, dir[0], dir[1]) + countLine(board, team, x, y, -dir[0], -dir[1]);
+            best = Math.max(best, line);
+        }
+        return best;
+    }
+
+    private static int countLine(Cell[][] board, int team, int x, int y, int dx, int dy) {
+        int count = 0;
+        for (int step = 1; step < 5; step++) {
+            int cx = x + dx * step;
+            int cy = y + dy * step;
+            if (cx < 0 || cy < 0 || cx >= board.length || cy >= board.length) {
+                break;
+            }
+            Cell cell = board[cy][cx];
+            if (!cell.isCorner() && (cell.getOwnerId() == null || cell.getTeam() != team)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    static final class Result {
+        long games;
+        long moves;
+        long wins;
+        long allocatedBytes;
+        long nanos;
+    }
+}
@@ -0,0 +1,237 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Битборд против полного скана доски по исходным правилам (countNewSequences, hasFreeCell и т.д. до битборда)
+ */
+class BitBoardTest {
+
+	private static final int SIZE = 10;
+	private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+	private record Position(int x, int y) {
+	}
+
+	@Test
+	void fiveInRowWithCornerIsOneSequence() {
+		Cell[][] board = emptyBoard();
+		BitBoard bitBoard = new BitBoard(GameService.CELL_CARDS);
+		for (int x = 1; x <= 3; x++) {
+			assertThat(place(board, bitBoard, x, 0, 0)).isZero();
+		}
+		assertThat(place(board, bitBoard, 4, 0, 0)).isEqualTo(1);
+		for (int x = 0; x <= 4; x++) {
+			assertThat(board[0][x].isSequence()).isTrue();
+			assertThat(bitBoard.isSequence(x, 0)).isTrue();
+		}
+		assertThat(place(board, bitBoard, 5, 0, 0)).isZero();
+	}
+
+	@Test
+	void secondSequenceMayShareOnlyOneCell() {
+		Cell[][] board = emptyBoard();
+		BitBoard bitBoard = new BitBoard(GameService.CELL_CARDS);
+		for (int x = 1; x <= 5; x++) {
+			place(board, bitBoard, x, 1, 0);
+		}
+		// продолжение той же линии делит с первой секвенцией одну клетку (5, 1)
+		for (int x = 6; x <= 8; x++) {
+			assertThat(place(board, bitBoard, x, 1, 0)).isZero();
+		}
+		assertThat(place(board, bitBoard, 9, 1, 0)).isEqualTo(1);
+
+		// вертикаль через (3, 1) тоже делит одну клетку
+		for (int y = 2; y <= 4; y++) {
+			place(board, bitBoard, 3, y, 0);
+		}
+		assertThat(place(board, bitBoard, 3, 5, 0)).isEqualTo(1);
+	}
+
+	@Test
+	void matchesFullScanOnRandomGames() {
+		Random random = new Random(7);
+		for (int game = 0; game < 500; game++) {
+			int teams = random.nextBoolean() ? 2 : 3;
+			Cell[][] expected = emptyBoard();
+			Cell[][] actual = emptyBoard();
+			BitBoard bitBoard = new BitBoard(GameService.CELL_CARDS);
+			for (int move = 0; move < 150; move++) {
+				int team = move % teams;
+				int x = random.nextInt(SIZE);
+				int y = random.nextInt(SIZE);
+				Cell cell = expected[y][x];
+				if (cell.isCorner() || cell.isSequence()) {
+					continue;
+				}
+				if (cell.getOwnerId() == null) {
+					setChip(expected, x, y, team);
+					setChip(actual, x, y, team);
+					bitBoard.place(x, y, team);
+				} else if (cell.getTeam() != team && random.nextInt(4) == 0) {
+					setChip(expected, x, y, -1);
+					setChip(actual, x, y, -1);
+					bitBoard.remove(x, y);
+				} else {
+					continue;
+				}
+
+				assertThat(bitBoard.lockNewSequences(team, x, y, actual)).isEqualTo(countNewSequences(expected, team));
+				for (int cy = 0; cy < SIZE; cy++) {
+					for (int cx = 0; cx < SIZE; cx++) {
+						assertThat(actual[cy][cx].isSequence()).isEqualTo(expected[cy][cx].isSequence());
+						assertThat(bitBoard.isSequence(cx, cy)).isEqualTo(expected[cy][cx].isSequence());
+					}
+				}
+				assertStuckCounters(expected, bitBoard, teams);
+
+				// загрузка из Redis: битборд собирается заново по клеткам
+				if (random.nextInt(30) == 0) {
+					bitBoard = BitBoard.from(actual, GameService.CELL_CARDS);
+					assertStuckCounters(expected, bitBoard, teams);
+				}
+			}
+		}
+	}
+
+	private static void assertStuckCounters(Cell[][] board, BitBoard bitBoard, int teams) {
+		assertThat(bitBoard.hasFreeCell()).isEqualTo(hasFreeCell(board));
+		for (int team = 0; team < teams; team++) {
+			assertThat(bitBoard.hasOpponentChip(team)).isEqualTo(hasOpponentChip(board, team));
+		}
+		for (int cardId = 0; cardId < Card.COUNT; cardId++) {
+			assertThat(bitBoard.freeMatchingCells(cardId)).isEqualTo(freeMatchingCells(board, cardId));
+		}
+	}
+
+	private static int place(Cell[][] board, BitBoard bitBoard, int x, int y, int team) {
+		setChip(board, x, y, team);
+		bitBoard.place(x, y, team);
+		return bitBoard.lockNewSequences(team, x, y, board);
+	}
+
+	private static void setChip(Cell[][] board, int x, int y, int team) {
+		board[y][x].setOwnerId(team < 0 ? null : "p" + team);
+		board[y][x].setTeam(team);
+	}
+
+	private static Cell[][] emptyBoard() {
+		Cell[][] board = new Cell[SIZE][SIZE];
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				Cell cell = new Cell();
+				int cardId = GameService.CELL_CARDS[BitBoard.index(x, y)];
+				cell.setCorner(cardId < 0);
+				cell.setCard(cardId < 0 ? null : Card.of(cardId));
+				board[y][x] = cell;
+			}
+		}
+		return board;
+	}
+
+	// ---- исходные правила: полный скан доски ----
+
+	private static boolean ownsCell(Cell cell, int team) {
+		return cell.isCorner() || (cell.getOwnerId() != null && cell.getTeam() == team);
+	}
+
+	private static int countNewSequences(Cell[][] board, int team) {
+		Set<Position> existing = new HashSet<>();
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				if (board[y][x].isSequence()) {
+					existing.add(new Position(x, y));
+				}
+			}
+		}
+		Set<Position> used = new HashSet<>(existing);
+		int count = 0;
+		for (List<Position> sequence : findSequences(board, team)) {
+			int overlapExisting = 0;
+			int overlapNew = 0;
+			for (Position position : sequence) {
+				if (existing.contains(position)) {
+					overlapExisting++;
+				} else if (used.contains(position)) {
+					overlapNew++;
+				}
+			}
+			if (overlapExisting > 1 || overlapNew > 0) {
+				continue;
+			}
+			count++;
+			for (Position position : sequence) {
+				board[position.y()][position.x()].setSequence(true);
+				used.add(position);
+			}
+		}
+		return count;
+	}
+
+	private static List<List<Position>> findSequences(Cell[][] board, int team) {
+		List<List<Position>> sequences = new ArrayList<>();
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < SIZE; y++) {
+				for (int[] dir : DIRECTIONS) {
+					List<Position> positions = new ArrayList<>();
+					for (int step = 0; step < BitBoard.SEQUENCE_LENGTH; step++) {
+						int nx = x + dir[0] * step;
+						int ny = y + dir[1] * step;
+						if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE || !ownsCell(board[ny][nx], team)) {
+							positions.clear();
+							break;
+						}
+						positions.add(new Position(nx, ny));
+					}
+					if (!positions.isEmpty()) {
+						sequences.add(positions);
+					}
+				}
+			}
+		}
+		return sequences;
+	}
+
+	private static boolean hasFreeCell(Cell[][] board) {
+		for (Cell[] row : board) {
+			for (Cell cell : row) {
+				if (!cell.isCorner() && !cell.isSequence() && cell.getOwnerId() == null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasOpponentChip(Cell[][] board, int team) {
+		for (Cell[] row : board) {
+			for (Cell cell : row) {
+				if (!cell.isCorner() && cell.getOwnerId() != null && cell.getTeam() != team && !cell.isSequence()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static int freeMatchingCells(Cell[][] board, int cardId) {
+		int count = 0;
+		for (Cell[] row : board) {
+			for (Cell cell : row) {
+				if (!cell.isCorner() && !cell.isSequence() && cell.getOwnerId() == null
+						&& cell.getCard().getId() == cardId) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
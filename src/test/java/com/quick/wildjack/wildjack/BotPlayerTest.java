@@ -0,0 +1,52 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class BotPlayerTest {
+
+	private final GameService gameService = spy(new GameService(null, null, null, null, null, null));
+	private final GamePublisher gamePublisher = mock(GamePublisher.class);
+	private final BotPlayer bot = new BotPlayer(gameService, gamePublisher, 20, 1, 1, 1000);
+
+	@AfterEach
+	void shutdown() {
+		bot.shutdown();
+	}
+
+	@Test
+	void failedMoveFallsBackToLegalMoveOnFreshState() {
+		Game game = gameService.createGame(List.of("a"));
+		game = gameService.addBot(game.getId());
+		Player botPlayer = game.getPlayers().stream().filter(Player::isBot).findFirst().orElseThrow();
+		while (game.getPlayers().get(game.getCurrentPlayerIndex()) != botPlayer) {
+			game = TestGames.playOne(gameService, game);
+		}
+		assertThat(game.getPlayers().get(game.getCurrentPlayerIndex())).isSameAs(botPlayer);
+		long versionBefore = game.getVersion();
+
+		// первое действие бота (любое из трёх) отклоняется, как при конфликте версий
+		RuntimeException stale = new RuntimeException("Stale game state");
+		doThrow(stale).doCallRealMethod().when(gameService)
+				.makeMove(anyString(), anyString(), any(), any(), anyInt(), anyInt());
+		doThrow(stale).doCallRealMethod().when(gameService).exchangeDeadCard(anyString(), anyString(), any());
+		doThrow(stale).doCallRealMethod().when(gameService).skipTurnIfStuck(anyString(), anyString());
+
+		bot.playTurn(game.getId(), botPlayer.getId());
+
+		Game after = gameService.getGameState(game.getId());
+		assertThat(after.getVersion()).isGreaterThan(versionBefore);
+		verify(gamePublisher).publish(any(Game.class));
+	}
+}
@@ -0,0 +1,66 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void jsonKeepsSuitAndRankOnly() throws Exception {
+		assertThat(objectMapper.writeValueAsString(Card.of("Hearts", "10")))
+				.isEqualTo("{\"suit\":\"Hearts\",\"rank\":\"10\"}");
+	}
+
+	@Test
+	void jsonRoundTripReturnsSharedInstance() throws Exception {
+		Set<String> names = new HashSet<>();
+		for (int id = 0; id < Card.COUNT; id++) {
+			Card card = Card.of(id);
+			assertThat(card.getId()).isEqualTo((byte) id);
+			assertThat(names.add(card.toString())).isTrue();
+
+			String json = objectMapper.writeValueAsString(card);
+			assertThat(objectMapper.readValue(json, Card.class)).isSameAs(card);
+			assertThat(Card.of(card.getSuit(), card.getRank())).isSameAs(card);
+		}
+	}
+
+	@Test
+	void cardsInsideGameStateAreShared() throws Exception {
+		Cell cell = new Cell();
+		cell.setCard(Card.of("Spades", "Q"));
+
+		Cell restored = objectMapper.readValue(objectMapper.writeValueAsString(cell), Cell.class);
+
+		assertThat(restored.getCard()).isSameAs(Card.of("Spades", "Q"));
+	}
+
+	@Test
+	void jacksByEyes() {
+		List<Card> twoEyed = List.of(Card.of("Diamonds", "J"), Card.of("Clubs", "J"));
+		List<Card> oneEyed = List.of(Card.of("Hearts", "J"), Card.of("Spades", "J"));
+		for (int id = 0; id < Card.COUNT; id++) {
+			Card card = Card.of(id);
+			assertThat(card.twoEyedJack()).isEqualTo(twoEyed.contains(card));
+			assertThat(card.oneEyedJack()).isEqualTo(oneEyed.contains(card));
+		}
+	}
+
+	@Test
+	void unknownCardIsRejected() {
+		assertThatThrownBy(() -> Card.of(Card.COUNT)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> Card.of("Hearts", "1")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> objectMapper.readValue("{\"suit\":\"Stars\",\"rank\":\"2\"}", Card.class))
+				.isInstanceOf(ValueInstantiationException.class);
+	}
+}
@@ -0,0 +1,70 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeckTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void shuffledDeckHasEveryCardTwice() {
+		Deck deck = Deck.shuffled(new Random(1));
+		int[] counts = new int[Card.COUNT];
+
+		assertThat(deck.size()).isEqualTo(Card.COUNT * 2);
+		while (!deck.isEmpty()) {
+			counts[deck.draw().getId()]++;
+		}
+
+		assertThat(counts).containsOnly(2);
+		assertThat(deck.size()).isZero();
+		assertThat(deck.draw()).isNull();
+	}
+
+	@Test
+	void jsonKeepsRemainingCardsInOrder() throws Exception {
+		Deck deck = Deck.shuffled(new Random(2));
+		deck.draw();
+		deck.draw();
+
+		String json = objectMapper.writeValueAsString(deck);
+		assertThat(Base64.getDecoder().decode(objectMapper.readValue(json, String.class)))
+				.hasSize(Card.COUNT * 2 - 2);
+
+		Deck restored = objectMapper.readValue(json, Deck.class);
+		assertThat(restored.size()).isEqualTo(deck.size());
+		assertThat(drawAll(restored)).containsExactlyElementsOf(drawAll(deck));
+	}
+
+	@Test
+	void readsLegacyCardArray() throws Exception {
+		String json = "[{\"suit\":\"Hearts\",\"rank\":\"10\"},{\"suit\":\"Spades\",\"rank\":\"J\"}]";
+
+		Deck deck = objectMapper.readValue(json, Deck.class);
+
+		assertThat(drawAll(deck)).containsExactly(Card.of("Hearts", "10"), Card.of("Spades", "J"));
+	}
+
+	@Test
+	void rejectsUnknownCardId() {
+		assertThatThrownBy(() -> Deck.fromBytes(new byte[]{0, (byte) Card.COUNT}))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static List<Card> drawAll(Deck deck) {
+		List<Card> cards = new ArrayList<>();
+		for (Card card = deck.draw(); card != null; card = deck.draw()) {
+			cards.add(card);
+		}
+		return cards;
+	}
+}
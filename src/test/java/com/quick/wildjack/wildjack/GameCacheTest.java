@@ -0,0 +1,73 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ограничения кэша партий; выгрузка с занятой полосой — на встроенном Redis
+ */
+class GameCacheTest {
+
+	@Test
+	void overflowListsLeastRecentlyReadGames() throws InterruptedException {
+		GameCache cache = new GameCache(2, 60_000, 60_000);
+		cache.put(game("G1"));
+		Thread.sleep(5);
+		cache.put(game("G2"));
+		Thread.sleep(5);
+		assertThat(cache.overflow()).isEmpty();
+
+		cache.get("G1");
+		Thread.sleep(5);
+		cache.put(game("G3"));
+
+		assertThat(cache.overflow()).containsExactly("G2");
+	}
+
+	@Test
+	void readKeepsGameWarmButNotUnchanged() throws InterruptedException {
+		GameCache cache = new GameCache(10, 50, 50);
+		cache.put(game("G1"));
+		cache.put(game("G2"));
+		Thread.sleep(80);
+
+		cache.get("G1");
+		long now = System.currentTimeMillis();
+
+		assertThat(cache.idle(now)).containsExactly("G2");
+		// чтение не изменение: по простою лобби G1 тоже брошено
+		assertThat(cache.unchanged(now)).containsExactlyInAnyOrder("G1", "G2");
+		// уборка смотрит партию, не продлевая её
+		assertThat(cache.peek("G2")).isNotNull();
+		assertThat(cache.idle(now)).containsExactly("G2");
+	}
+
+	@Test
+	void overflowSkipsGameWhoseStripeThisThreadHolds() throws InterruptedException {
+		TestRedis.flush();
+		GameCache cache = new GameCache(1, 60_000, 60_000);
+		GameService gameService = new GameService(TestRedis.gameTemplate(), null, null, null, null, cache);
+		String held = gameService.createGame(List.of("a", "b")).getId();
+		Thread.sleep(5);
+
+		// новая партия переполняет кэш, пока этот поток держит полосу самой старой
+		gameService.withGameLock(held, () -> gameService.createGame(List.of("c", "d")));
+		assertThat(cache.contains(held)).isTrue();
+
+		// полоса отпущена — следующая запись выгружает её (партия остаётся в Redis)
+		for (int i = 0; i < 10 && cache.contains(held); i++) {
+			gameService.createGame(List.of("e", "f"));
+		}
+		assertThat(cache.contains(held)).isFalse();
+		assertThat(gameService.getGameState(held).getId()).isEqualTo(held);
+	}
+
+	private static Game game(String id) {
+		Game game = new Game();
+		game.setId(id);
+		return game;
+	}
+}
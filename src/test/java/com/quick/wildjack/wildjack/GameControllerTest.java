@@ -0,0 +1,114 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class GameControllerTest {
+
+	private final GameService gameService = new GameService(null, null, null, null, null, null);
+	private final GamePublisher gamePublisher = mock(GamePublisher.class);
+	private final SessionTokens sessionTokens = new SessionTokens("test-secret", "local");
+	private final GameController controller = new GameController(gameService, gamePublisher, sessionTokens);
+
+	@Test
+	void joinUnderTakenNameGetsNoToken() {
+		JoinGameResponse created = controller.createGame(List.of("Alice"), false, null).getBody();
+
+		assertThatThrownBy(() -> controller.joinGame(created.getGame().getId(), "alice", null))
+				.hasMessage("Player name already taken");
+		assertThat(gameService.getGameState(created.getGame().getId()).getPlayers()).hasSize(1);
+	}
+
+	@Test
+	void joinUnderBotNameIsRejected() {
+		JoinGameResponse created = controller.createGame(List.of("Alice"), true, null).getBody();
+		Player bot = gameService.getGameState(created.getGame().getId()).getPlayers().stream()
+				.filter(Player::isBot)
+				.findFirst()
+				.orElseThrow();
+
+		assertThatThrownBy(() -> controller.joinGame(created.getGame().getId(), bot.getName(), null))
+				.hasMessage("Player name already taken");
+	}
+
+	@Test
+	void restMoveRequiresSessionTokenAndIsPublished() {
+		JoinGameResponse created = controller.createGame(List.of("Alice", "Bob"), false, null).getBody();
+		String gameId = created.getGame().getId();
+		Game game = gameService.getGameState(gameId);
+		Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+		clearInvocations(gamePublisher);
+		CardMoves playable = gameService.getLegalMoves(gameId, current.getId()).getCards().stream()
+				.filter(cardMoves -> !cardMoves.isDead())
+				.findFirst()
+				.orElseThrow();
+		MoveRequest move = new MoveRequest();
+		move.setCard(playable.getCard());
+		move.setCardIndex(playable.getCardIndex());
+		move.setX(playable.getTargets().get(0)[0]);
+		move.setY(playable.getTargets().get(0)[1]);
+
+		// id игрока публичный — без подписи он не даёт права ходить
+		assertThatThrownBy(() -> controller.makeMove(gameId, current.getId(), move))
+				.hasMessage("Invalid session token");
+		verify(gamePublisher, never()).publish(any(Game.class));
+
+		controller.makeMove(gameId, sessionTokens.issue(current.getId()), move);
+
+		assertThat(game.getPlayers().get(game.getCurrentPlayerIndex())).isNotSameAs(current);
+		verify(gamePublisher).publish(game);
+	}
+
+	@Test
+	void forwardedActionTakesPlayerFromSessionToken() {
+		JoinGameResponse created = controller.createGame(List.of("Alice", "Bob"), false, null).getBody();
+		String gameId = created.getGame().getId();
+		Game game = gameService.getGameState(gameId);
+		Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+		Player other = game.getPlayers().stream().filter(p -> p != current).findFirst().orElseThrow();
+		long versionBefore = game.getVersion();
+		CardMoves playable = gameService.getLegalMoves(gameId, current.getId()).getCards().stream()
+				.filter(cardMoves -> !cardMoves.isDead())
+				.findFirst()
+				.orElseThrow();
+		MoveMessage message = new MoveMessage();
+		message.setPlayerId(current.getId());
+		message.setAction("MOVE");
+		message.setCard(playable.getCard());
+		message.setCardIndex(playable.getCardIndex());
+		message.setX(playable.getTargets().get(0)[0]);
+		message.setY(playable.getTargets().get(0)[1]);
+
+		// playerId из тела не в счёт: ходит владелец токена
+		assertThat(controller.applyAction(gameId, sessionTokens.issue(other.getId()), message).getStatusCode())
+				.isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(controller.applyAction(gameId, current.getId(), message).getBody())
+				.isEqualTo("Invalid session token");
+		assertThat(game.getVersion()).isEqualTo(versionBefore);
+
+		assertThat(controller.applyAction(gameId, sessionTokens.issue(current.getId()), message).getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+		assertThat(game.getVersion()).isGreaterThan(versionBefore);
+	}
+
+	@Test
+	void timeoutNeedsNodeSignature() {
+		JoinGameResponse created = controller.createGame(List.of("Alice", "Bob"), false, null).getBody();
+		String gameId = created.getGame().getId();
+
+		assertThat(controller.checkTimeout(gameId, null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(controller.checkTimeout(gameId, "1").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(controller.checkTimeout(gameId, sessionTokens.signNodeRequest(gameId)).getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+	}
+}
@@ -0,0 +1,68 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Режим events во встроенном Redis: снимок плюс журнал, прочитанные другим инстансом, дают ту же партию,
+ * что держит в памяти инстанс, который её менял
+ */
+class GameEventLogReplayTest {
+
+	private static final int SNAPSHOT_EVERY = 5;
+
+	private final StringRedisTemplate redis = TestRedis.stringTemplate();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@BeforeEach
+	void setUp() {
+		TestRedis.flush();
+	}
+
+	@Test
+	void replayMatchesInMemoryGame() {
+		assertReplayMatches(List.of("a", "b"));
+	}
+
+	@Test
+	void replayMatchesInMemoryTeamGame() {
+		assertReplayMatches(List.of("a", "b", "c", "d"));
+	}
+
+	private void assertReplayMatches(List<String> players) {
+		GameService writer = service();
+		Game game = writer.createGame(players, 1L);
+		String gameId = game.getId();
+		int maxLog = 0;
+
+		while (game.getStatus() == GameStatus.STARTED) {
+			game = TestGames.playOne(writer, game);
+			if (game.getStatus() != GameStatus.STARTED) {
+				break;
+			}
+			Long logSize = redis.opsForList().size(GameEventLog.key(gameId));
+			maxLog = Math.max(maxLog, logSize == null ? 0 : logSize.intValue());
+
+			Game replayed = service().getGameState(gameId);
+			assertThat(tree(replayed)).isEqualTo(tree(game));
+		}
+		// журнал сжимается в снимок каждые SNAPSHOT_EVERY событий
+		assertThat(maxLog).isBetween(1, SNAPSHOT_EVERY);
+	}
+
+	private GameService service() {
+		GameEventLog eventLog = new GameEventLog(redis, objectMapper, "events", SNAPSHOT_EVERY, 60_000);
+		return new GameService(TestRedis.gameTemplate(), null, eventLog, null, null, null);
+	}
+
+	private JsonNode tree(Game game) {
+		return objectMapper.valueToTree(game);
+	}
+}
@@ -0,0 +1,112 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Рассылка обновлений через канал game:fanout между двумя инстансами на встроенном Redis
+ */
+class GameFanoutRedisTest {
+
+	private final StringRedisTemplate redis = TestRedis.stringTemplate();
+	private final GameFanout fanoutA = fanout();
+	private final GameFanout fanoutB = fanout();
+	private final BlockingQueue<Delivery> deliveredA = new LinkedBlockingQueue<>();
+	private final BlockingQueue<Delivery> deliveredB = new LinkedBlockingQueue<>();
+
+	private record Delivery(Game game, LegalMoves hints) {
+	}
+
+	@BeforeEach
+	void setUp() throws InterruptedException {
+		TestRedis.flush();
+		fanoutA.start((game, hints) -> deliveredA.add(new Delivery(game, hints)));
+		fanoutB.start((game, hints) -> deliveredB.add(new Delivery(game, hints)));
+		awaitSubscribers();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		fanoutA.stop();
+		fanoutB.stop();
+	}
+
+	@Test
+	void broadcastReachesOtherInstanceOnceInVersionOrder() throws InterruptedException {
+		GameService gameService = new GameService(null, null, null, null, null, null);
+		Game game = gameService.createGame(List.of("a", "b"));
+		List<Long> sent = new ArrayList<>();
+		for (int i = 0; i < 10 && game.getStatus() == GameStatus.STARTED; i++) {
+			fanoutA.broadcast(game, null);
+			sent.add(game.getVersion());
+			game = TestGames.playOne(gameService, game);
+		}
+
+		assertThat(versions(deliveredB, sent.size())).containsExactlyElementsOf(sent);
+		// отправитель получает своё обновление тем же путём — тоже ровно один раз
+		assertThat(versions(deliveredA, sent.size())).containsExactlyElementsOf(sent);
+		assertThat(deliveredB.poll(200, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(deliveredA.poll(0, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void deliveredGameMatchesBroadcastState() throws InterruptedException {
+		GameService gameService = new GameService(null, null, null, null, null, null);
+		Game game = TestGames.playOne(gameService, gameService.createGame(List.of("a", "b")));
+		LegalMoves hints = gameService.getLegalMoves(game.getId(),
+				game.getPlayers().get(game.getCurrentPlayerIndex()).getId());
+
+		fanoutA.broadcast(game, hints);
+
+		Delivery delivered = deliveredB.poll(5, TimeUnit.SECONDS);
+		assertThat(delivered).isNotNull();
+		assertThat(delivered.game()).isNotSameAs(game);
+		assertThat(delivered.game().getId()).isEqualTo(game.getId());
+		assertThat(delivered.game().getVersion()).isEqualTo(game.getVersion());
+		assertThat(delivered.game().getCurrentPlayerIndex()).isEqualTo(game.getCurrentPlayerIndex());
+		assertThat(delivered.hints().getPlayerId()).isEqualTo(hints.getPlayerId());
+		assertThat(delivered.hints().getCards()).hasSameSizeAs(hints.getCards());
+	}
+
+	private static GameFanout fanout() {
+		return new GameFanout(TestRedis.connectionFactory(), TestRedis.stringTemplate(), new ObjectMapper(), "redis");
+	}
+
+	private static List<Long> versions(BlockingQueue<Delivery> delivered, int count) throws InterruptedException {
+		List<Long> versions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Delivery delivery = delivered.poll(5, TimeUnit.SECONDS);
+			if (delivery == null) {
+				break;
+			}
+			versions.add(delivery.game().getVersion());
+		}
+		return versions;
+	}
+
+	// подписка контейнера асинхронная — ждём, пока оба инстанса слушают канал.
+	// PUBLISH возвращает число получателей; нечитаемое сообщение инстансы пропускают
+	private void awaitSubscribers() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (subscribers() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(subscribers()).isEqualTo(2);
+	}
+
+	private long subscribers() {
+		Long receivers = redis.convertAndSend(GameFanout.CHANNEL, "ping");
+		return receivers == null ? 0 : receivers;
+	}
+}
@@ -0,0 +1,134 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Outbox итогов во встроенном Redis: итоги кладёт скрипт снятия партии, запись из списка не теряется
+ */
+class GameFinalizerOutboxTest {
+
+	private final StringRedisTemplate redis = TestRedis.stringTemplate();
+	private final List<GameFinalizer.Row> written = new ArrayList<>();
+	private boolean databaseDown;
+	private GameFinalizer finalizer;
+	private GameService gameService;
+
+	@BeforeEach
+	void setUp() {
+		TestRedis.flush();
+		written.clear();
+		databaseDown = false;
+		// база подменена: пачки складываются в written или падают, пока databaseDown
+		finalizer = new GameFinalizer(redis, null, null, new ObjectMapper(), 200, 500, 1000, 60000, 30000) {
+			@Override
+			void write(List<Row> batch) {
+				if (databaseDown) {
+					throw new RuntimeException("database is down");
+				}
+				written.addAll(batch);
+			}
+		};
+		gameService = new GameService(TestRedis.gameTemplate(), finalizer, null, null, null, null);
+	}
+
+	@Test
+	void finishedGameGoesToOutboxWithItsSnapshotDeleted() {
+		Game game = gameService.createGame(List.of("a", "b"), 42L);
+		TestGames.playToEnd(gameService, game.getId());
+
+		assertThat(redis.hasKey(GameService.redisKey(game.getId()))).isFalse();
+		assertThat(finalizer.getOutboxSize()).isEqualTo(1);
+
+		assertThat(finalizer.drainOnce()).isTrue();
+		assertThat(written).singleElement().satisfies(row -> {
+			assertThat(row.gameId()).isEqualTo(game.getId());
+			assertThat(row.payload()).contains("\"status\":\"FINISHED\"");
+			assertThat(row.stats()).singleElement().extracting(StatChange::telegramId).isEqualTo(42L);
+		});
+		assertThat(finalizer.getOutboxSize()).isZero();
+	}
+
+	@Test
+	void failedBatchStaysInOutbox() {
+		Game game = gameService.createGame(List.of("a", "b"));
+		TestGames.playToEnd(gameService, game.getId());
+
+		databaseDown = true;
+		assertThatThrownBy(finalizer::drainOnce).hasMessage("database is down");
+		assertThatThrownBy(finalizer::drainOnce).hasMessage("database is down");
+		assertThat(finalizer.getOutboxSize()).isEqualTo(1);
+
+		databaseDown = false;
+		finalizer.drainOnce();
+		assertThat(written).extracting(GameFinalizer.Row::gameId).containsExactly(game.getId());
+		assertThat(finalizer.getOutboxSize()).isZero();
+	}
+
+	@Test
+	void batchWrittenBeforeCrashIsDeliveredAgainUnchanged() {
+		Game game = gameService.createGame(List.of("a", "b"), 42L);
+		TestGames.playToEnd(gameService, game.getId());
+		// база записала пачку, но инстанс упал до удаления записей из outbox
+		GameFinalizer crashing = new GameFinalizer(redis, null, null, new ObjectMapper(), 200, 500, 1000, 60000, 30000) {
+			@Override
+			void write(List<Row> batch) {
+				written.addAll(batch);
+				throw new RuntimeException("crashed after commit");
+			}
+		};
+		assertThatThrownBy(crashing::drainOnce).hasMessage("crashed after commit");
+		redis.delete(GameFinalizer.WRITER_KEY);
+
+		finalizer.drainOnce();
+
+		// повтор приходит с тем же id партии и теми же итогами — запись в Postgres его отбрасывает
+		assertThat(written).hasSize(2);
+		assertThat(written.get(1)).isEqualTo(written.get(0));
+		assertThat(finalizer.getOutboxSize()).isZero();
+	}
+
+	@Test
+	void everyRecordOfRepeatedGameLeavesOutbox() throws InterruptedException {
+		Game game = gameService.createGame(List.of("a", "b"));
+		redis.opsForList().rightPush(GameFinalizer.OUTBOX_KEY, new String(finalizer.outcome(game, List.of())));
+		Thread.sleep(5);
+		// та же партия ещё раз, с другим временем окончания — другая строка в списке
+		redis.opsForList().rightPush(GameFinalizer.OUTBOX_KEY, new String(finalizer.outcome(game, List.of())));
+
+		finalizer.drainOnce();
+
+		assertThat(written).extracting(GameFinalizer.Row::gameId).containsOnly(game.getId());
+		assertThat(finalizer.getOutboxSize()).isZero();
+	}
+
+	@Test
+	void unreadableRecordIsMovedAside() {
+		redis.opsForList().rightPush(GameFinalizer.OUTBOX_KEY, "not a record");
+
+		finalizer.drainOnce();
+
+		assertThat(finalizer.getOutboxSize()).isZero();
+		assertThat(redis.opsForList().range(GameFinalizer.DEAD_KEY, 0, -1)).containsExactly("not a record");
+		assertThat(written).isEmpty();
+	}
+
+	@Test
+	void onlyLeaseHolderDrainsOutbox() {
+		Game game = gameService.createGame(List.of("a", "b"));
+		TestGames.playToEnd(gameService, game.getId());
+		redis.opsForValue().set(GameFinalizer.WRITER_KEY, "other-instance");
+
+		assertThat(finalizer.drainOnce()).isFalse();
+		assertThat(written).isEmpty();
+		assertThat(finalizer.getOutboxSize()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,132 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Clob;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Запись итогов в настоящий Postgres: payload — large object (oid), повтор пачки не задваивает статистику
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class GameFinalizerPostgresTest {
+
+	@Container
+	static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:16-alpine");
+
+	// таблицы в том виде, в каком их создаёт Hibernate (ddl-auto=update): @Lob String — oid
+	private static final String SCHEMA = """
+			CREATE TABLE IF NOT EXISTS finished_games (
+			    id varchar(255) PRIMARY KEY,
+			    payload oid NOT NULL,
+			    finished_at timestamp(6) with time zone NOT NULL
+			);
+			CREATE TABLE IF NOT EXISTS users (
+			    telegram_id bigint PRIMARY KEY,
+			    games_played integer,
+			    wins integer,
+			    losses integer,
+			    rating integer,
+			    updated_at timestamp(6) with time zone
+			);
+			""";
+
+	private final GameService gameService = new GameService(null, null, null, null, null, null);
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private GameFinalizer finalizer;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		jdbcTemplate.execute(SCHEMA);
+		jdbcTemplate.update("DELETE FROM finished_games");
+		jdbcTemplate.update("DELETE FROM users");
+		jdbcTemplate.update("INSERT INTO users (telegram_id, rating) VALUES (1, 100), (2, 100)");
+		// поток не запускается: пачки пишутся из теста напрямую
+		finalizer = new GameFinalizer(null, jdbcTemplate, transactionManager,
+				new ObjectMapper(), 200, 500, 1000, 60000, 30000);
+	}
+
+	@Test
+	void payloadIsStoredAsLargeObject() {
+		GameFinalizer.Row row = row(gameService.createGame(List.of("Ёжик", "b")), List.of());
+
+		finalizer.write(List.of(row));
+
+		// читается так же, как FinishedGame: large object — только внутри транзакции
+		String stored = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(
+				"SELECT payload FROM finished_games WHERE id = ?",
+				(rs, i) -> {
+					Clob clob = rs.getClob(1);
+					return clob.getSubString(1, (int) clob.length());
+				}, row.gameId()));
+		assertThat(stored).isEqualTo(row.payload());
+	}
+
+	@Test
+	void repeatedBatchCountsStatsOnce() {
+		GameFinalizer.Row first = row(gameService.createGame(List.of("a", "b")),
+				List.of(new StatChange(1, 1, 0, 25), new StatChange(2, 0, 1, -25)));
+		GameFinalizer.Row second = row(gameService.createGame(List.of("a", "b")),
+				List.of(new StatChange(1, 0, 1, -25)));
+
+		finalizer.write(List.of(first));
+		// повтор после сбоя: first уже записана, second — новая (и в пачке дважды)
+		finalizer.write(List.of(first, second, second));
+		finalizer.write(List.of(first, second));
+
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM finished_games", Integer.class)).isEqualTo(2);
+		Map<String, Object> one = jdbcTemplate.queryForMap(
+				"SELECT games_played, wins, losses, rating FROM users WHERE telegram_id = 1");
+		assertThat(one).containsEntry("games_played", 2).containsEntry("wins", 1)
+				.containsEntry("losses", 1).containsEntry("rating", 100);
+		Map<String, Object> two = jdbcTemplate.queryForMap(
+				"SELECT games_played, wins, losses, rating FROM users WHERE telegram_id = 2");
+		assertThat(two).containsEntry("games_played", 1).containsEntry("losses", 1).containsEntry("rating", 75);
+	}
+
+	@Test
+	void duplicateGameInBatchCreatesOneLargeObject() {
+		GameFinalizer.Row first = row(gameService.createGame(List.of("a", "b")),
+				List.of(new StatChange(1, 1, 0, 25)));
+		// та же партия второй записью outbox, с другим снимком и временем
+		GameFinalizer.Row duplicate = new GameFinalizer.Row(first.gameId(), "{}",
+				new Timestamp(first.finishedAt().getTime() + 1_000), List.of(new StatChange(1, 1, 0, 25)));
+		int objectsBefore = largeObjects();
+
+		finalizer.write(List.of(first, duplicate));
+
+		assertThat(largeObjects()).isEqualTo(objectsBefore + 1);
+		assertThat(jdbcTemplate.queryForObject("SELECT finished_at FROM finished_games WHERE id = ?",
+				Timestamp.class, first.gameId())).isEqualTo(first.finishedAt());
+		assertThat(jdbcTemplate.queryForObject("SELECT wins FROM users WHERE telegram_id = 1", Integer.class))
+				.isEqualTo(1);
+	}
+
+	private int largeObjects() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM pg_largeobject_metadata", Integer.class);
+	}
+
+	private GameFinalizer.Row row(Game game, List<StatChange> stats) {
+		return finalizer.parse(new String(finalizer.outcome(game, stats), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,84 @@
+package com.quick.wildjack.wildjack;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Что уходит инстансу-владельцу: подпись инстанса и токен сессии игрока (владелец — локальный HttpServer)
+ */
+class GameForwarderTest {
+
+	private final SessionTokens sessionTokens = new SessionTokens("test-secret", "local");
+	private final GameForwarder forwarder = new GameForwarder(sessionTokens);
+	private final Map<String, Map<String, String>> received = new ConcurrentHashMap<>();
+	private HttpServer owner;
+	private String ownerUrl;
+
+	@BeforeEach
+	void startOwner() throws IOException {
+		owner = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		owner.createContext("/api/games/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			Map<String, String> headers = new ConcurrentHashMap<>();
+			exchange.getRequestHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+			received.put(path, headers);
+			byte[] body = path.contains("REJECTED") ? "Not your turn".getBytes(StandardCharsets.UTF_8) : new byte[0];
+			exchange.sendResponseHeaders(path.contains("REJECTED") ? 400 : 200, body.length == 0 ? -1 : body.length);
+			if (body.length > 0) {
+				exchange.getResponseBody().write(body);
+			}
+			exchange.close();
+		});
+		owner.start();
+		ownerUrl = "http://127.0.0.1:" + owner.getAddress().getPort();
+	}
+
+	@AfterEach
+	void stopOwner() {
+		owner.stop(0);
+	}
+
+	@Test
+	void timeoutCarriesNodeSignatureForItsGame() {
+		forwarder.forwardTimeout(ownerUrl, "G1");
+
+		String signature = received.get("/api/games/G1/timeout").get(GameForwarder.FORWARDED_HEADER.toLowerCase());
+		assertThat(sessionTokens.isNodeRequest("G1", signature)).isTrue();
+		assertThat(sessionTokens.isNodeRequest("G2", signature)).isFalse();
+	}
+
+	@Test
+	void actionCarriesPlayersSessionToken() {
+		MoveMessage message = new MoveMessage();
+		message.setGameId("G1");
+		message.setPlayerId("p-1");
+
+		forwarder.forwardAction(ownerUrl, message);
+
+		Map<String, String> headers = received.get("/api/games/G1/action");
+		assertThat(sessionTokens.playerId(headers.get(GameForwarder.SESSION_TOKEN_HEADER.toLowerCase())))
+				.isEqualTo("p-1");
+		assertThat(sessionTokens.isNodeRequest("G1", headers.get(GameForwarder.FORWARDED_HEADER.toLowerCase())))
+				.isTrue();
+	}
+
+	@Test
+	void ownersErrorComesBackAsException() {
+		MoveMessage message = new MoveMessage();
+		message.setGameId("REJECTED");
+		message.setPlayerId("p-1");
+
+		assertThatThrownBy(() -> forwarder.forwardAction(ownerUrl, message)).hasMessage("Not your turn");
+	}
+}
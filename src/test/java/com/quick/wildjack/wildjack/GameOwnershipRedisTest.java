@@ -0,0 +1,98 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Аренда партий и CAS записи при нескольких инстансах на общем встроенном Redis
+ */
+class GameOwnershipRedisTest {
+
+	private static final String NODE_A = "http://node-a";
+	private static final String NODE_B = "http://node-b";
+
+	private final StringRedisTemplate redis = TestRedis.stringTemplate();
+
+	@BeforeEach
+	void setUp() {
+		TestRedis.flush();
+	}
+
+	@Test
+	void missingGameGetsNoLease() {
+		GameOwnership ownership = new GameOwnership(redis, "redis", 30_000, NODE_A);
+		GameService gameService = new GameService(TestRedis.gameTemplate(), null, null, null, ownership, null);
+
+		assertThat(ownership.ownerOf("nope")).isNull();
+		assertThatThrownBy(() -> gameService.getGameState("nope")).hasMessage("Game not found");
+		assertThat(redis.hasKey("game:nope:owner")).isFalse();
+	}
+
+	@Test
+	void expiredLeaseMovesToAnotherNode() throws InterruptedException {
+		GameOwnership ownershipA = new GameOwnership(redis, "redis", 1_000, NODE_A);
+		GameOwnership ownershipB = new GameOwnership(redis, "redis", 30_000, NODE_B);
+		GameService serviceA = new GameService(TestRedis.gameTemplate(), null, null, null, ownershipA, null);
+		GameService serviceB = new GameService(TestRedis.gameTemplate(), null, null, null, ownershipB, null);
+
+		String gameId = serviceA.createGame(List.of("a", "b")).getId();
+		assertThat(ownershipB.ownerOf(gameId)).isEqualTo(NODE_A);
+		assertThatThrownBy(() -> serviceB.getGameState(gameId)).hasMessage("Game is owned by another node");
+
+		// A перестал продлевать аренду — после истечения её забирает B
+		Thread.sleep(1_500);
+		assertThat(ownershipB.ownerOf(gameId)).isNull();
+		Game game = serviceB.getGameState(gameId);
+		long version = TestGames.playOne(serviceB, game).getVersion();
+
+		// A узнаёт о потере на продлении и выгружает свою копию
+		ownershipA.renewLeases();
+		assertThat(ownershipA.ownerOf(gameId)).isEqualTo(NODE_B);
+		assertThatThrownBy(() -> serviceA.getGameState(gameId)).hasMessage("Game is owned by another node");
+		assertThat(serviceB.getGameState(gameId).getVersion()).isEqualTo(version);
+	}
+
+	@Test
+	void staleCopyIsReloadedOnWriteConflict() {
+		GameService serviceA = new GameService(TestRedis.gameTemplate(), null, null, null, null, null);
+		GameService serviceB = new GameService(TestRedis.gameTemplate(), null, null, null, null, null);
+
+		String gameId = serviceA.createGame(List.of("a", "b")).getId();
+		serviceB.getGameState(gameId);
+		Game afterA = TestGames.playOne(serviceA, serviceA.getGameState(gameId));
+		long versionA = afterA.getVersion();
+		String firstId = afterA.getLastMove().getPlayerId();
+		int firstX = afterA.getLastMove().getX();
+		int firstY = afterA.getLastMove().getY();
+
+		// у B копия до хода A: отказ «не твой ход» сверяет версию, B перечитывает партию и ход проходит
+		Game fresh = new GameService(TestRedis.gameTemplate(), null, null, null, null, null).getGameState(gameId);
+		String secondId = fresh.getPlayers().get(fresh.getCurrentPlayerIndex()).getId();
+		// ход не на клетку A: одноглазый валет снял бы его фишку, и проверка хода A ниже потеряла бы смысл
+		CardMoves move = new GameService(TestRedis.gameTemplate(), null, null, null, null, null)
+				.getLegalMoves(gameId, secondId).getCards().stream()
+				.filter(cardMoves -> cardMoves.getTargets().stream().anyMatch(t -> t[0] != firstX || t[1] != firstY))
+				.findFirst().orElseThrow();
+		int[] target = move.getTargets().stream()
+				.filter(t -> t[0] != firstX || t[1] != firstY).findFirst().orElseThrow();
+		Game afterB = serviceB.makeMove(gameId, secondId, move.getCard(), move.getCardIndex(), target[0], target[1]);
+		assertThat(afterB.getVersion()).isEqualTo(versionA + 1);
+
+		// теперь устарела копия A: тот же ход применяется к ней, но запись не проходит CAS,
+		// после перечитывания ход уже не того игрока, и ход B не перезаписан
+		assertThatThrownBy(() -> serviceA.makeMove(gameId, secondId, move.getCard(), move.getCardIndex(),
+				target[0], target[1])).hasMessage("Not your turn");
+		assertThat(redis.opsForValue().get(GameService.versionKey(gameId))).isEqualTo(String.valueOf(versionA + 1));
+
+		Game reloaded = new GameService(TestRedis.gameTemplate(), null, null, null, null, null).getGameState(gameId);
+		assertThat(reloaded.getVersion()).isEqualTo(versionA + 1);
+		assertThat(reloaded.getBoard()[firstY][firstX].getOwnerId()).isEqualTo(firstId);
+		assertThat(reloaded.getLastMove().getPlayerId()).isEqualTo(secondId);
+	}
+}
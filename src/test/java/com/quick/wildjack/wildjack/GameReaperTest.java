@@ -0,0 +1,46 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Уборка брошенных лобби и простаивающих партий на встроенном Redis
+ */
+class GameReaperTest {
+
+	private final GameCache cache = new GameCache(100, 20, 20);
+	private final GameService gameService = new GameService(TestRedis.gameTemplate(), null, null, null, null, cache);
+	private final GamePublisher gamePublisher = mock(GamePublisher.class);
+	private final GameReaper reaper = new GameReaper(gameService, gamePublisher, cache);
+
+	@BeforeEach
+	void setUp() {
+		TestRedis.flush();
+	}
+
+	@Test
+	void abandonedLobbyIsClosedAndStartedGameOnlyUnloaded() throws InterruptedException {
+		String lobby = gameService.createGame(List.of("a")).getId();
+		String started = gameService.createGame(List.of("a", "b")).getId();
+		Thread.sleep(50);
+
+		reaper.sweep();
+
+		ArgumentCaptor<Game> closed = ArgumentCaptor.forClass(Game.class);
+		verify(gamePublisher).publish(closed.capture());
+		assertThat(closed.getValue().getId()).isEqualTo(lobby);
+		assertThat(closed.getValue().getStatus()).isEqualTo(GameStatus.FINISHED);
+		assertThat(TestRedis.gameTemplate().hasKey(GameService.redisKey(lobby))).isFalse();
+
+		// начатая партия выгружена из памяти, но не закрыта — читается из Redis
+		assertThat(cache.contains(started)).isFalse();
+		assertThat(gameService.getGameState(started).getStatus()).isEqualTo(GameStatus.STARTED);
+	}
+}
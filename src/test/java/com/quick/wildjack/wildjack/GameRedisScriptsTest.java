@@ -0,0 +1,114 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lua-скрипты записи партии во встроенном Redis: каждая запись проходит только поверх ожидаемой версии
+ */
+class GameRedisScriptsTest {
+
+	private static final String GAME_ID = "ABCDE";
+	private static final String TTL_MS = "60000";
+
+	private final StringRedisTemplate redis = TestRedis.stringTemplate();
+	private final String snapshotKey = GameService.redisKey(GAME_ID);
+	private final String versionKey = GameService.versionKey(GAME_ID);
+	private final String eventsKey = GameEventLog.key(GAME_ID);
+
+	@BeforeEach
+	void setUp() {
+		TestRedis.flush();
+	}
+
+	@Test
+	void saveCreatesGameAndClearsLog() {
+		redis.opsForList().rightPush(eventsKey, "event");
+
+		assertThat(save("0", "1", "snapshot-1")).isEqualTo(1);
+
+		assertThat(redis.opsForValue().get(snapshotKey)).isEqualTo("snapshot-1");
+		assertThat(redis.opsForValue().get(versionKey)).isEqualTo("1");
+		assertThat(redis.hasKey(eventsKey)).isFalse();
+		assertThat(redis.getExpire(snapshotKey)).isPositive();
+		assertThat(redis.getExpire(versionKey)).isPositive();
+	}
+
+	@Test
+	void saveRejectsStaleVersion() {
+		save("0", "1", "snapshot-1");
+		save("1", "2", "snapshot-2");
+
+		assertThat(save("1", "2", "stale")).isZero();
+
+		assertThat(redis.opsForValue().get(snapshotKey)).isEqualTo("snapshot-2");
+		assertThat(redis.opsForValue().get(versionKey)).isEqualTo("2");
+	}
+
+	@Test
+	void appendRequiresExpectedVersion() {
+		save("0", "1", "snapshot-1");
+
+		assertThat(append("1", "2", "event-2")).isEqualTo(1);
+		assertThat(append("1", "2", "stale")).isZero();
+		assertThat(append("2", "3", "event-3")).isEqualTo(1);
+
+		assertThat(redis.opsForList().range(eventsKey, 0, -1)).containsExactly("event-2", "event-3");
+		assertThat(redis.opsForValue().get(versionKey)).isEqualTo("3");
+		assertThat(redis.getExpire(eventsKey)).isPositive();
+		// снимок сбрасывает журнал только поверх последней версии
+		assertThat(save("2", "3", "stale")).isZero();
+		assertThat(save("3", "4", "snapshot-4")).isEqualTo(1);
+		assertThat(redis.hasKey(eventsKey)).isFalse();
+	}
+
+	@Test
+	void deleteMovesOutcomeToOutboxAtomically() {
+		save("0", "1", "snapshot-1");
+		append("1", "2", "event-2");
+
+		assertThat(delete("1", "stale outcome")).isZero();
+		assertThat(redis.hasKey(snapshotKey)).isTrue();
+		assertThat(redis.opsForList().size(GameFinalizer.OUTBOX_KEY)).isZero();
+
+		assertThat(delete("2", "outcome")).isEqualTo(1);
+		assertThat(redis.hasKey(snapshotKey)).isFalse();
+		assertThat(redis.hasKey(eventsKey)).isFalse();
+		assertThat(redis.opsForValue().get(versionKey)).isEqualTo(GameService.FINISHED_VERSION);
+		assertThat(redis.opsForList().range(GameFinalizer.OUTBOX_KEY, 0, -1)).containsExactly("outcome");
+	}
+
+	@Test
+	void finishedGameCannotBeWrittenAgain() {
+		save("0", "1", "snapshot-1");
+		delete("1", "");
+
+		assertThat(redis.opsForList().size(GameFinalizer.OUTBOX_KEY)).isZero();
+		assertThat(save("1", "2", "late")).isZero();
+		assertThat(append("1", "2", "late")).isZero();
+		assertThat(delete("1", "late outcome")).isZero();
+		assertThat(redis.hasKey(snapshotKey)).isFalse();
+		assertThat(redis.opsForList().size(GameFinalizer.OUTBOX_KEY)).isZero();
+	}
+
+	private Long save(String expected, String version, String snapshot) {
+		return redis.execute(GameService.SAVE_SNAPSHOT, List.of(snapshotKey, versionKey, eventsKey),
+				expected, version, snapshot, TTL_MS);
+	}
+
+	private Long append(String expected, String version, String event) {
+		return redis.execute(GameEventLog.APPEND, List.of(eventsKey, versionKey, snapshotKey),
+				expected, version, event, TTL_MS);
+	}
+
+	private Long delete(String expected, String outcome) {
+		return redis.execute(GameService.DELETE_SNAPSHOT,
+				List.of(snapshotKey, versionKey, eventsKey, GameFinalizer.OUTBOX_KEY),
+				expected, GameService.FINISHED_VERSION, "86400", outcome);
+	}
+}
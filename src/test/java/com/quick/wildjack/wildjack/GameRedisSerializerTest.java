@@ -0,0 +1,111 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GameRedisSerializerTest {
+
+	private final GameService gameService = new GameService(null, null, null, null, null, null);
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void exchangeFlagSurvivesSnapshot() {
+		Game game = gameService.createGame(List.of("a", "b"));
+		game.setExchangeUsedThisTurn(true);
+
+		Game decoded = GameRedisSerializer.decode(new ByteReader(GameRedisSerializer.encode(game)));
+
+		assertThat(decoded.isExchangeUsedThisTurn()).isTrue();
+		assertThat(decoded.isTeamGame()).isEqualTo(game.isTeamGame());
+	}
+
+	@Test
+	void currentFormatRoundTrip() {
+		Game game = gameService.createGame(List.of("a", "b", "c", "d"), 42L);
+		for (int i = 0; i < 10; i++) {
+			game = TestGames.playOne(gameService, game);
+		}
+
+		byte[] bytes = GameRedisSerializer.encode(game);
+		Game decoded = GameRedisSerializer.decode(new ByteReader(bytes));
+
+		assertThat(bytes[1]).isEqualTo((byte) GameRedisSerializer.FORMAT_VERSION);
+		assertThat(tree(decoded)).isEqualTo(tree(game));
+		assertThat(decoded.getPlayers().get(0).getTelegramId()).isEqualTo(42L);
+	}
+
+	/**
+	 * Снимок версии 1 (до telegramId игроков), записанный кодировщиком той версии
+	 */
+	@Test
+	void readsVersionOneSnapshot() throws Exception {
+		byte[] bytes;
+		try (InputStream in = getClass().getResourceAsStream("/game-snapshot-v1.b64")) {
+			bytes = Base64.getDecoder().decode(new String(in.readAllBytes(), StandardCharsets.US_ASCII).trim());
+		}
+		assertThat(bytes[1]).isEqualTo((byte) 1);
+
+		Game game = new GameRedisSerializer(objectMapper, false).deserialize(bytes);
+
+		assertThat(game.getId()).isEqualTo("QS6EZ");
+		assertThat(game.getVersion()).isEqualTo(15);
+		assertThat(game.getStatus()).isEqualTo(GameStatus.STARTED);
+		assertThat(game.isTeamGame()).isTrue();
+		assertThat(game.isExchangeUsedThisTurn()).isFalse();
+		assertThat(game.getCurrentPlayerIndex()).isEqualTo(2);
+		assertThat(game.getDeck().size()).isEqualTo(70);
+		assertThat(game.getPlayers()).extracting(Player::getName).containsExactly("anna", "boris", "vera", "gleb");
+		assertThat(game.getPlayers()).extracting(Player::getTelegramId).containsOnlyNulls();
+		assertThat(game.getPlayers().get(0).getHand()).containsExactly(Card.of("Diamonds", "J"),
+				Card.of("Hearts", "7"), Card.of("Hearts", "3"), Card.of("Diamonds", "6"), Card.of("Clubs", "K"));
+		assertThat(game.getLastMove().getPlayerId()).isEqualTo(game.getPlayers().get(1).getId());
+		assertThat(game.getBoard()[1][0].getOwnerId()).isEqualTo(game.getPlayers().get(1).getId());
+		long chips = 0;
+		for (Cell[] row : game.getBoard()) {
+			for (Cell cell : row) {
+				if (cell.getOwnerId() != null) {
+					chips++;
+				}
+			}
+		}
+		assertThat(chips).isEqualTo(14);
+
+		// перезапись идёт уже в текущей версии и ничего не теряет
+		Game rewritten = GameRedisSerializer.decode(new ByteReader(GameRedisSerializer.encode(game)));
+		assertThat(tree(rewritten)).isEqualTo(tree(game));
+	}
+
+	@Test
+	void readsJsonSnapshot() {
+		Game game = gameService.createGame(List.of("a", "b"), 7L);
+		GameRedisSerializer serializer = new GameRedisSerializer(objectMapper, true);
+
+		byte[] json = serializer.serialize(game);
+		assertThat(json[0]).isEqualTo((byte) '{');
+
+		Game decoded = new GameRedisSerializer(objectMapper, false).deserialize(json);
+		assertThat(tree(decoded)).isEqualTo(tree(game));
+	}
+
+	@Test
+	void rejectsUnknownVersion() {
+		byte[] bytes = GameRedisSerializer.encode(gameService.createGame(List.of("a", "b")));
+		bytes[1] = (byte) (GameRedisSerializer.FORMAT_VERSION + 1);
+
+		assertThatThrownBy(() -> new GameRedisSerializer(objectMapper, false).deserialize(bytes))
+				.hasRootCauseMessage("Unsupported game format version: " + (GameRedisSerializer.FORMAT_VERSION + 1));
+	}
+
+	private JsonNode tree(Game game) {
+		return objectMapper.valueToTree(game);
+	}
+}
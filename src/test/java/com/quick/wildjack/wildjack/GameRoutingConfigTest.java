@@ -0,0 +1,92 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Пересылка запросов владельцу партии и проверка подписи инстанса
+ */
+class GameRoutingConfigTest {
+
+	private static final String OWNER = "http://node-b";
+
+	private final GameOwnership ownership = mock(GameOwnership.class);
+	private final GameForwarder forwarder = mock(GameForwarder.class);
+	private final SessionTokens sessionTokens = new SessionTokens("test-secret", "local");
+	private final HandlerInterceptor interceptor =
+			new GameRoutingConfig(ownership, forwarder, sessionTokens).forwardingInterceptor();
+
+	@Test
+	void requestForForeignGameIsForwardedToOwner() throws Exception {
+		when(ownership.isEnabled()).thenReturn(true);
+		when(ownership.ownerOf("G1")).thenReturn(OWNER);
+		MockHttpServletRequest request = request("G1", null);
+		when(forwarder.forward(OWNER, "G1", request))
+				.thenReturn(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body("{}".getBytes()));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		assertThat(interceptor.preHandle(request, response, null)).isFalse();
+		assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+		assertThat(response.getContentAsString()).isEqualTo("{}");
+	}
+
+	@Test
+	void forwardedHeaderWithoutValidSignatureIsRejected() throws Exception {
+		when(ownership.isEnabled()).thenReturn(true);
+		when(ownership.ownerOf(anyString())).thenReturn(null);
+
+		for (String signature : new String[]{"1", sessionTokens.signNodeRequest("G2"), ""}) {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			assertThat(interceptor.preHandle(request("G1", signature), response, null)).isFalse();
+			assertThat(response.getStatus()).isEqualTo(HttpStatus.FORBIDDEN.value());
+		}
+		verify(forwarder, never()).forward(anyString(), anyString(), any());
+	}
+
+	@Test
+	void signedRequestForThisNodeIsHandled() throws Exception {
+		when(ownership.isEnabled()).thenReturn(true);
+		when(ownership.ownerOf("G1")).thenReturn(null);
+
+		assertThat(interceptor.preHandle(request("G1", sessionTokens.signNodeRequest("G1")),
+				new MockHttpServletResponse(), null)).isTrue();
+	}
+
+	@Test
+	void secondHopGets503InsteadOfForwardingAgain() throws Exception {
+		when(ownership.isEnabled()).thenReturn(true);
+		when(ownership.ownerOf("G1")).thenReturn(OWNER);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		assertThat(interceptor.preHandle(request("G1", sessionTokens.signNodeRequest("G1")), response, null))
+				.isFalse();
+		assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+		verify(forwarder, never()).forward(eq(OWNER), anyString(), any());
+	}
+
+	private static MockHttpServletRequest request(String gameId, String signature) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/games/" + gameId);
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("gameId", gameId));
+		if (signature != null) {
+			request.addHeader(GameForwarder.FORWARDED_HEADER, signature);
+		}
+		return request;
+	}
+}
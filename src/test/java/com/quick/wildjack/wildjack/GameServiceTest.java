@@ -0,0 +1,70 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GameServiceTest {
+
+	private static final int BOARD_SIZE = 10;
+
+	private final GameService gameService = new GameService(null, null, null, null, null, null);
+
+	@Test
+	void rejectedCardLeavesBoardUntouched() {
+		Game game = gameService.createGame(List.of("a", "b"));
+		Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+		CardMoves playable = firstPlayable(gameService.getLegalMoves(game.getId(), current.getId()));
+		int[] target = playable.getTargets().get(0);
+		List<Card> handBefore = new ArrayList<>(current.getHand());
+		long versionBefore = game.getVersion();
+
+		assertThatThrownBy(() -> gameService.makeMove(game.getId(), current.getId(), playable.getCard(),
+				handBefore.size(), target[0], target[1]))
+				.hasMessage("Card index out of range");
+
+		assertThat(game.getBoard()[target[1]][target[0]].getOwnerId()).isNull();
+		assertThat(game.getBitBoard().isFree(target[1] * BOARD_SIZE + target[0])).isTrue();
+		assertThat(current.getHand()).containsExactlyElementsOf(handBefore);
+		assertThat(game.getVersion()).isEqualTo(versionBefore);
+		assertThat(game.getCurrentPlayerIndex()).isEqualTo(game.getPlayers().indexOf(current));
+
+		gameService.makeMove(game.getId(), current.getId(), playable.getCard(), playable.getCardIndex(),
+				target[0], target[1]);
+		assertThat(game.getCurrentPlayerIndex()).isNotEqualTo(game.getPlayers().indexOf(current));
+	}
+
+	@Test
+	void cardNotInHandIsRejectedBeforePlacingChip() {
+		Game game = gameService.createGame(List.of("a", "b"));
+		Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+		// обычная карта, которой нет на руке, на свободную клетку с её изображением
+		for (int y = 0; y < BOARD_SIZE; y++) {
+			for (int x = 0; x < BOARD_SIZE; x++) {
+				Card card = game.getBoard()[y][x].getCard();
+				if (card == null || current.getHand().contains(card)) {
+					continue;
+				}
+				int cx = x;
+				int cy = y;
+				assertThatThrownBy(() -> gameService.makeMove(game.getId(), current.getId(), card, null, cx, cy))
+						.hasMessage("Card not in hand");
+				assertThat(game.getBoard()[y][x].getOwnerId()).isNull();
+				assertThat(game.getBitBoard().isFree(y * BOARD_SIZE + x)).isTrue();
+				return;
+			}
+		}
+		throw new AssertionError("No card outside the hand on the board");
+	}
+
+	private static CardMoves firstPlayable(LegalMoves moves) {
+		return moves.getCards().stream()
+				.filter(cardMoves -> !cardMoves.isDead() && !cardMoves.getCard().oneEyedJack())
+				.findFirst()
+				.orElseThrow();
+	}
+}
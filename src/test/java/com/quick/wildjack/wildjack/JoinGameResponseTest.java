@@ -0,0 +1,29 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JoinGameResponseTest {
+
+	@Test
+	void containsOnlyTheRequestersHand() throws Exception {
+		GameService gameService = new GameService(null, null, null, null, null, null);
+		Game game = gameService.createGame(List.of("a", "b"), 1001L);
+		Player me = game.getPlayers().get(1);
+
+		JoinGameResponse response = JoinGameResponse.of(game, me.getId(), "token");
+		JsonNode json = new ObjectMapper().valueToTree(response);
+
+		assertThat(response.getHand()).containsExactlyElementsOf(me.getHand());
+		assertThat(json.path("game").has("deck")).isFalse();
+		for (JsonNode player : json.path("game").path("players")) {
+			assertThat(player.path("hand").isNull()).isTrue();
+			assertThat(player.path("telegramId").isNull()).isTrue();
+		}
+	}
+}
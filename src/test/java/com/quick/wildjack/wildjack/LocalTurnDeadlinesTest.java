@@ -0,0 +1,58 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalTurnDeadlinesTest {
+
+	private final LocalTurnDeadlines deadlines = new LocalTurnDeadlines();
+
+	@Test
+	void expiredGamesComeOutInDeadlineOrder() {
+		deadlines.schedule("G3", 300);
+		deadlines.schedule("G1", 100);
+		deadlines.schedule("G2", 200);
+		deadlines.schedule("G4", 400);
+
+		assertThat(deadlines.pollExpired(100)).isEmpty();
+		assertThat(deadlines.pollExpired(350)).containsExactly("G1", "G2", "G3");
+		// выданная партия из очереди уходит
+		assertThat(deadlines.pollExpired(350)).isEmpty();
+		assertThat(deadlines.pollExpired(401)).containsExactly("G4");
+	}
+
+	@Test
+	void rescheduleReplacesPreviousDeadline() {
+		deadlines.schedule("G1", 100);
+		deadlines.schedule("G2", 150);
+		deadlines.schedule("G1", 200);
+
+		assertThat(deadlines.pollExpired(180)).containsExactly("G2");
+		assertThat(deadlines.pollExpired(250)).containsExactly("G1");
+	}
+
+	@Test
+	void cancelledGameNeverExpires() {
+		deadlines.schedule("G1", 100);
+		deadlines.schedule("G2", 100);
+		deadlines.cancel("G1");
+		deadlines.cancel("missing");
+
+		assertThat(deadlines.pollExpired(1_000)).containsExactly("G2");
+	}
+
+	@Test
+	void rescheduleAfterPollQueuesGameAgain() {
+		deadlines.schedule("G1", 100);
+		assertThat(deadlines.pollExpired(150)).containsExactly("G1");
+
+		// GameService ставит партию обратно, если дедлайн успел смениться
+		deadlines.schedule("G1", 300);
+		deadlines.cancel("G1");
+		deadlines.schedule("G1", 500);
+
+		assertThat(deadlines.pollExpired(400)).isEmpty();
+		assertThat(deadlines.pollExpired(501)).containsExactly("G1");
+	}
+}
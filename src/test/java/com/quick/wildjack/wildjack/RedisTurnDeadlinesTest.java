@@ -0,0 +1,61 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Общая очередь дедлайнов на встроенном Redis: два инстанса на одном sorted set
+ */
+class RedisTurnDeadlinesTest {
+
+	private static final long LEASE_MS = 1_000;
+
+	private final StringRedisTemplate redis = TestRedis.stringTemplate();
+	private final RedisTurnDeadlines nodeA = new RedisTurnDeadlines(redis, LEASE_MS, 100);
+	private final RedisTurnDeadlines nodeB = new RedisTurnDeadlines(redis, LEASE_MS, 100);
+
+	@BeforeEach
+	void setUp() {
+		TestRedis.flush();
+	}
+
+	@Test
+	void claimsOnlyExpiredGames() {
+		nodeA.schedule("G1", 100);
+		nodeA.schedule("G2", 200);
+		nodeA.schedule("G3", 300);
+
+		assertThat(nodeA.pollExpired(100)).isEmpty();
+		assertThat(nodeA.pollExpired(250)).containsExactly("G1", "G2");
+		assertThat(redis.opsForZSet().score(RedisTurnDeadlines.KEY, "G3")).isEqualTo(300);
+	}
+
+	@Test
+	void claimLeaseHidesGameFromOtherNodeUntilItRunsOut() {
+		nodeA.schedule("G1", 100);
+
+		assertThat(nodeA.pollExpired(150)).containsExactly("G1");
+		// запись не удалена, а перенесена на now + аренда
+		assertThat(redis.opsForZSet().score(RedisTurnDeadlines.KEY, "G1")).isEqualTo(150 + LEASE_MS);
+		assertThat(nodeB.pollExpired(150 + LEASE_MS - 1)).isEmpty();
+
+		// забравший инстанс не закончил партию — после аренды её забирает другой
+		assertThat(nodeB.pollExpired(150 + LEASE_MS + 1)).containsExactly("G1");
+	}
+
+	@Test
+	void rescheduleReplacesDeadlineAndCancelRemovesGame() {
+		nodeA.schedule("G1", 100);
+		nodeA.schedule("G2", 100);
+
+		nodeA.schedule("G1", 5_000);
+		nodeA.cancel("G2");
+
+		assertThat(nodeB.pollExpired(1_000)).isEmpty();
+		assertThat(redis.opsForZSet().zCard(RedisTurnDeadlines.KEY)).isEqualTo(1);
+		assertThat(nodeB.pollExpired(5_001)).containsExactly("G1");
+	}
+}
@@ -0,0 +1,92 @@
+package com.quick.wildjack.wildjack;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.security.Principal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionTokensTest {
+
+	private final SessionTokens tokens = new SessionTokens("test-secret", "local");
+
+	@Test
+	void issuedTokenResolvesToItsPlayer() {
+		assertThat(tokens.playerId(tokens.issue("p-1"))).isEqualTo("p-1");
+	}
+
+	@Test
+	void publicPlayerIdIsNotAToken() {
+		String token = tokens.issue("p-1");
+
+		assertThat(tokens.playerId("p-1")).isNull();
+		assertThat(tokens.playerId("p-2" + token.substring(token.indexOf('.')))).isNull();
+		assertThat(tokens.playerId(token + "x")).isNull();
+		assertThat(new SessionTokens("other-secret", "local").playerId(token)).isNull();
+	}
+
+	@Test
+	void nodeSignatureIsBoundToGameAndSecret() {
+		String signature = tokens.signNodeRequest("g-1");
+
+		assertThat(tokens.isNodeRequest("g-1", signature)).isTrue();
+		assertThat(tokens.isNodeRequest("g-2", signature)).isFalse();
+		assertThat(tokens.isNodeRequest("g-1", "1")).isFalse();
+		assertThat(tokens.isNodeRequest("g-1", null)).isFalse();
+		assertThat(new SessionTokens("other-secret", "local").isNodeRequest("g-1", signature)).isFalse();
+	}
+
+	@Test
+	void secretIsRequiredAcrossInstances() {
+		assertThatThrownBy(() -> new SessionTokens("", "redis"))
+				.hasMessage("wildjack.session.secret is required in redis ownership mode");
+	}
+
+	@Test
+	void connectBindsSessionOnlyToSignedToken() {
+		assertThat(connect("sessionToken", tokens.issue("p-1")).getName()).isEqualTo("p-1");
+		// заголовок playerId (id публичен) больше ничего не даёт
+		assertThat(connect("playerId", "p-1")).isNull();
+		assertThatThrownBy(() -> connect("sessionToken", "p-1"))
+				.hasMessage("Invalid session token");
+	}
+
+	@Test
+	void resolvedUserQueueCannotBeSubscribedDirectly() {
+		PlayerPrincipal player = new PlayerPrincipal("p-1", false);
+
+		// так выглядит разрешённая очередь руки чужой сессии
+		assertThatThrownBy(() -> subscribe(null, "/queue/hand-user5kq2w1ab"))
+				.hasMessage("Subscribe to /user/queue instead of /queue/hand-user5kq2w1ab");
+		assertThatThrownBy(() -> subscribe(player, "/queue/hand-user5kq2w1ab"))
+				.hasMessage("Subscribe to /user/queue instead of /queue/hand-user5kq2w1ab");
+		assertThatThrownBy(() -> subscribe(null, "/user/queue/hand"))
+				.hasMessage("Session token is required for /user/queue/hand");
+
+		subscribe(player, "/user/queue/hand");
+		subscribe(null, "/topic/game/g-1");
+	}
+
+	private void subscribe(Principal user, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		accessor.setDestination(destination);
+		accessor.setUser(user);
+		accessor.setLeaveMutable(true);
+		Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+		new WebSocketConfig(tokens).playerSessionInterceptor().preSend(message, null);
+	}
+
+	private Principal connect(String header, String value) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+		accessor.setNativeHeader(header, value);
+		accessor.setLeaveMutable(true);
+		Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+		new WebSocketConfig(tokens).playerSessionInterceptor().preSend(message, null);
+		return accessor.getUser();
+	}
+}
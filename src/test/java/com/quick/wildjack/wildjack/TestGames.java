@@ -0,0 +1,35 @@
+package com.quick.wildjack.wildjack;
+
+/**
+ * Доигрывание партий в тестах: первая карта с допустимой клеткой, иначе обмен или пропуск
+ */
+final class TestGames {
+
+	private TestGames() {
+	}
+
+	static Game playToEnd(GameService gameService, String gameId) {
+		Game game = gameService.getGameState(gameId);
+		while (game.getStatus() == GameStatus.STARTED) {
+			game = playOne(gameService, game);
+		}
+		return game;
+	}
+
+	static Game playOne(GameService gameService, Game game) {
+		Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+		LegalMoves moves = gameService.getLegalMoves(game.getId(), current.getId());
+		if (moves.isMustSkip()) {
+			return gameService.skipTurnIfStuck(game.getId(), current.getId());
+		}
+		for (CardMoves cardMoves : moves.getCards()) {
+			if (!cardMoves.isDead()) {
+				int[] target = cardMoves.getTargets().get(0);
+				return gameService.makeMove(game.getId(), current.getId(), cardMoves.getCard(),
+						cardMoves.getCardIndex(), target[0], target[1]);
+			}
+		}
+		CardMoves dead = moves.getCards().get(0);
+		return gameService.exchangeDeadCard(game.getId(), current.getId(), dead.getCard());
+	}
+}
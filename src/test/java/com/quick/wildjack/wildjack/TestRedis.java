@@ -0,0 +1,67 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * Встроенный redis-server на свободном порту, один на все тесты JVM; между тестами база очищается flush()
+ */
+final class TestRedis {
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	private TestRedis() {
+	}
+
+	static synchronized LettuceConnectionFactory connectionFactory() {
+		if (connectionFactory == null) {
+			try {
+				int port;
+				try (ServerSocket socket = new ServerSocket(0)) {
+					port = socket.getLocalPort();
+				}
+				RedisServer server = new RedisServer(port);
+				server.start();
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						server.stop();
+					} catch (IOException ignored) {
+						// процесс всё равно завершается
+					}
+				}));
+				connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+				connectionFactory.afterPropertiesSet();
+				connectionFactory.start();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot start embedded Redis", e);
+			}
+		}
+		return connectionFactory;
+	}
+
+	static StringRedisTemplate stringTemplate() {
+		return new StringRedisTemplate(connectionFactory());
+	}
+
+	/**
+	 * Шаблон снимков как в RedisConfig
+	 */
+	static RedisTemplate<String, Game> gameTemplate() {
+		return new RedisConfig().gameRedisTemplate(connectionFactory(), new ObjectMapper(), "binary");
+	}
+
+	static void flush() {
+		stringTemplate().execute(connection -> {
+			connection.serverCommands().flushAll();
+			return null;
+		}, true);
+	}
+}
@@ -0,0 +1,290 @@
+package com.quick.wildjack.wildjack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Бинарные кадры глазами клиента: декодер ниже собирает партию из VIEW и DELTA
+ * и сверяет её с состоянием на сервере после каждого хода
+ */
+class WireCodecTest {
+
+	private record Sent(String destination, Object payload) {
+	}
+
+	private final List<Sent> sent = new ArrayList<>();
+	private final GameService gameService = new GameService(null, null, null, null, null, null);
+	private GamePublisher publisher;
+
+	@BeforeEach
+	void setUp() {
+		SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true) {
+			@Override
+			public void convertAndSend(String destination, Object payload) {
+				sent.add(new Sent(destination, payload));
+			}
+
+			@Override
+			public void convertAndSendToUser(String user, String destination, Object payload) {
+				sent.add(new Sent(user + destination, payload));
+			}
+		};
+		// все игроки подключены в бинарном формате
+		SimpUserRegistry userRegistry = mock(SimpUserRegistry.class);
+		when(userRegistry.getUser(anyString())).thenAnswer(invocation -> {
+			SimpUser user = mock(SimpUser.class);
+			when(user.getPrincipal()).thenReturn(new PlayerPrincipal(invocation.getArgument(0), true));
+			return user;
+		});
+		publisher = new GamePublisher(gameService, messagingTemplate, event -> { }, userRegistry,
+				new GameFanout(null, null, new ObjectMapper(), "local"));
+		publisher.startFanout();
+	}
+
+	@Test
+	void repeatedVersionIsNotSentAgain() {
+		Game game = gameService.createGame(List.of("a", "b"));
+		publisher.publish(game);
+		game = TestGames.playOne(gameService, game);
+		sent.clear();
+
+		publisher.publish(game);
+		int afterFirst = sent.size();
+		// эхо рассылки или повтор той же версии — подписчикам ничего не уходит
+		publisher.publish(game);
+
+		assertThat(sent).hasSize(afterFirst);
+		String delta = "/topic/game/" + game.getId() + "/delta/bin";
+		assertThat(sent).filteredOn(message -> message.destination().equals(delta)).hasSize(1);
+	}
+
+	@Test
+	void viewAndDeltasRebuildGame() {
+		Game game = gameService.createGame(List.of("a", "b", "c"));
+		Client client = new Client();
+		Map<String, List<Card>> hands = new HashMap<>();
+
+		publisher.publish(game);
+		receive(client, hands);
+		assertMatches(client, hands, game);
+
+		int moves = 0;
+		while (game.getStatus() == GameStatus.STARTED) {
+			game = TestGames.playOne(gameService, game);
+			publisher.publish(game);
+			receive(client, hands);
+			assertMatches(client, hands, game);
+			moves++;
+		}
+		assertThat(moves).isGreaterThan(1);
+		assertThat(client.status).isEqualTo(GameStatus.FINISHED.ordinal());
+	}
+
+	@Test
+	void hintsFrame() {
+		Game game = gameService.createGame(List.of("a", "b"));
+		Player current = game.getPlayers().get(game.getCurrentPlayerIndex());
+		LegalMoves moves = gameService.getLegalMoves(game.getId(), current.getId());
+
+		ByteReader in = new ByteReader(WireCodec.encodeHints(moves));
+
+		assertThat(in.getUnsigned()).isEqualTo(WireCodec.HINTS);
+		assertThat(in.getString()).isEqualTo(game.getId());
+		int flags = in.getUnsigned();
+		assertThat((flags & 1) != 0).isEqualTo(moves.isYourTurn());
+		assertThat((flags & 2) != 0).isEqualTo(moves.isExchangeAvailable());
+		assertThat((flags & 4) != 0).isEqualTo(moves.isMustSkip());
+		assertThat(in.getUnsigned()).isEqualTo(moves.getCards().size());
+		for (CardMoves cardMoves : moves.getCards()) {
+			assertThat(in.getUnsigned()).isEqualTo(cardMoves.getCardIndex());
+			assertThat(Card.of(in.getUnsigned())).isSameAs(cardMoves.getCard());
+			assertThat(in.getUnsigned() != 0).isEqualTo(cardMoves.isDead());
+			int targets = in.getUnsigned();
+			assertThat(targets).isEqualTo(cardMoves.getTargets().size());
+			for (int[] target : cardMoves.getTargets()) {
+				assertThat(in.getUnsigned()).isEqualTo(BitBoard.index(target[0], target[1]));
+			}
+		}
+		assertThat(in.hasRemaining()).isFalse();
+	}
+
+	@Test
+	void errorFrame() {
+		ByteReader in = new ByteReader(WireCodec.encodeError("Не твой ход"));
+		assertThat(in.getUnsigned()).isEqualTo(WireCodec.ERROR);
+		assertThat(in.getString()).isEqualTo("Не твой ход");
+		assertThat(in.hasRemaining()).isFalse();
+
+		ByteReader empty = new ByteReader(WireCodec.encodeError(null));
+		assertThat(empty.getUnsigned()).isEqualTo(WireCodec.ERROR);
+		assertThat(empty.getString()).isNull();
+	}
+
+	private void receive(Client client, Map<String, List<Card>> hands) {
+		for (Sent message : sent) {
+			assertThat(message.payload()).isInstanceOf(byte[].class);
+			byte[] frame = (byte[]) message.payload();
+			if (message.destination().endsWith("/queue/hand")) {
+				hands.put(message.destination().substring(0, message.destination().indexOf('/')),
+						client.readHand(frame));
+			} else if (message.destination().endsWith("/delta/bin")) {
+				client.applyDelta(frame);
+			} else if (message.destination().endsWith("/bin")) {
+				client.applyView(frame);
+			}
+		}
+		sent.clear();
+	}
+
+	private static void assertMatches(Client client, Map<String, List<Card>> hands, Game game) {
+		assertThat(client.gameId).isEqualTo(game.getId());
+		assertThat(client.version).isEqualTo(game.getVersion());
+		assertThat(client.status).isEqualTo(game.getStatus().ordinal());
+		assertThat(client.result).isEqualTo(game.getResult() == null ? 0xFF : game.getResult().ordinal());
+		assertThat(client.winnerKey).isEqualTo(game.getWinnerKey());
+		assertThat(client.currentPlayerIndex).isEqualTo(game.getCurrentPlayerIndex());
+		assertThat(client.turnDeadlineEpochMs).isEqualTo(game.getTurnDeadlineEpochMs());
+		assertThat(client.deckSize).isEqualTo(game.getDeckSize());
+		assertThat(client.sequencesByKey).isEqualTo(game.getSequencesByKey());
+		List<Player> players = game.getPlayers();
+		assertThat(client.playerIds).containsExactlyElementsOf(players.stream().map(Player::getId).toList());
+		for (int i = 0; i < players.size(); i++) {
+			Player player = players.get(i);
+			assertThat(client.handSizes[i]).isEqualTo(player.getHand().size());
+			assertThat(hands.get(player.getId())).containsExactlyElementsOf(player.getHand());
+		}
+		for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+			Cell expected = game.getBoard()[cell / BitBoard.SIZE][cell % BitBoard.SIZE];
+			int owner = expected.getOwnerId() == null ? 0
+					: players.stream().map(Player::getId).toList().indexOf(expected.getOwnerId()) + 1;
+			assertThat(client.board[cell]).isEqualTo(owner | (expected.isSequence() ? 0x80 : 0));
+		}
+		LastMove lastMove = game.getLastMove();
+		if (lastMove == null || lastMove.getCard() == null) {
+			assertThat(client.lastMoveCell).isEqualTo(-1);
+		} else {
+			assertThat(client.lastMoveCell).isEqualTo(BitBoard.index(lastMove.getX(), lastMove.getY()));
+			assertThat(client.playerIds.get(client.lastMovePlayer)).isEqualTo(lastMove.getPlayerId());
+			assertThat(Card.of(client.lastMoveCard)).isSameAs(lastMove.getCard());
+			assertThat(client.lastMoveFlags)
+					.isEqualTo((lastMove.isJackRemove() ? 1 : 0) | (lastMove.isJackWild() ? 2 : 0));
+		}
+	}
+
+	/**
+	 * Клиентский декодер кадров WireCodec
+	 */
+	private static final class Client {
+		String gameId;
+		long version;
+		List<String> playerIds = new ArrayList<>();
+		int[] handSizes;
+		int status;
+		int result;
+		String winnerKey;
+		int currentPlayerIndex;
+		long turnDeadlineEpochMs;
+		int deckSize;
+		Map<String, Integer> sequencesByKey;
+		int lastMoveCell;
+		int lastMovePlayer;
+		int lastMoveCard;
+		int lastMoveFlags;
+		final int[] board = new int[BitBoard.CELLS];
+
+		void applyView(byte[] frame) {
+			ByteReader in = new ByteReader(frame);
+			assertThat(in.getUnsigned()).isEqualTo(WireCodec.VIEW);
+			gameId = in.getString();
+			version = in.getLong();
+			in.getUnsigned();   // maxPlayers
+			in.getUnsigned();   // командная партия
+			int players = in.getUnsigned();
+			playerIds.clear();
+			handSizes = new int[players];
+			for (int i = 0; i < players; i++) {
+				playerIds.add(in.getString());
+				in.getString();     // имя
+				in.getString();     // цвет
+				in.getUnsigned();   // команда
+				in.getUnsigned();   // бот
+				handSizes[i] = in.getUnsigned();
+			}
+			readTurn(in);
+			for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+				board[cell] = in.getUnsigned();
+			}
+			assertThat(in.hasRemaining()).isFalse();
+		}
+
+		void applyDelta(byte[] frame) {
+			ByteReader in = new ByteReader(frame);
+			assertThat(in.getUnsigned()).isEqualTo(WireCodec.DELTA);
+			assertThat(in.getString()).isEqualTo(gameId);
+			assertThat(in.getLong()).isEqualTo(version);
+			version = in.getLong();
+			readTurn(in);
+			int cells = in.getUnsigned();
+			for (int i = 0; i < cells; i++) {
+				int cell = in.getUnsigned();
+				board[cell] = in.getUnsigned();
+			}
+			int hands = in.getUnsigned();
+			for (int i = 0; i < hands; i++) {
+				int player = in.getUnsigned();
+				handSizes[player] = in.getUnsigned();
+			}
+			assertThat(in.hasRemaining()).isFalse();
+		}
+
+		List<Card> readHand(byte[] frame) {
+			ByteReader in = new ByteReader(frame);
+			assertThat(in.getUnsigned()).isEqualTo(WireCodec.HAND);
+			assertThat(in.getString()).isEqualTo(gameId);
+			assertThat(in.getLong()).isEqualTo(version);
+			int size = in.getUnsigned();
+			List<Card> hand = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				hand.add(Card.of(in.getUnsigned()));
+			}
+			assertThat(in.hasRemaining()).isFalse();
+			return hand;
+		}
+
+		private void readTurn(ByteReader in) {
+			status = in.getUnsigned();
+			result = in.getUnsigned();
+			winnerKey = in.getString();
+			currentPlayerIndex = in.getUnsigned();
+			turnDeadlineEpochMs = in.getLong();
+			deckSize = in.getUnsigned();
+			int sequences = in.getUnsigned();
+			sequencesByKey = new HashMap<>();
+			for (int i = 0; i < sequences; i++) {
+				sequencesByKey.put(in.getString(), in.getUnsigned());
+			}
+			if (in.getUnsigned() == 0) {
+				lastMoveCell = -1;
+				return;
+			}
+			lastMoveCell = in.getUnsigned();
+			lastMovePlayer = in.getUnsigned();
+			lastMoveCard = in.getUnsigned();
+			lastMoveFlags = in.getUnsigned();
+		}
+	}
+}